@@ -0,0 +1,69 @@
+package misccode.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import misccode.AssignmentEngine;
+import misccode.TspAssignmentMethod;
+
+/**
+ * The two assignment engines of TspAssignmentMethod on Euclidean instances.
+ * A single max-penalty operation takes seconds already at n = 500 and grows
+ * as O(n^4), so every iteration times one operation and the max-penalty
+ * engine only runs at n = 500 by default; larger sizes are opt-in, e.g.
+ * -p maxPenaltyN=500,2000.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class AssignmentBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class HungarianInput {
+    @Param({"500", "2000", "5000"})
+    int n;
+
+    private double[][] d;
+    private int[] succ;
+
+    @Setup
+    public void setup() {
+      d = Inputs.euclideanDistances(n);
+      succ = new int[n];
+    }
+  }
+
+  @State(Scope.Benchmark)
+  public static class MaxPenaltyInput {
+    @Param({"500"})
+    int maxPenaltyN;
+
+    private double[][] d;
+    private int[] succ;
+
+    @Setup
+    public void setup() {
+      d = Inputs.euclideanDistances(maxPenaltyN);
+      succ = new int[maxPenaltyN];
+    }
+  }
+
+  @Benchmark
+  public double hungarian(HungarianInput in) {
+    return new TspAssignmentMethod(in.d).assignment(in.succ, AssignmentEngine.HUNGARIAN);
+  }
+
+  @Benchmark
+  public double maxPenalty(MaxPenaltyInput in) {
+    // The max-penalty engine reduces the matrix it was given in place
+    double[][] copy = new double[in.d.length][];
+    for (int i = 0; i < in.d.length; i++) {
+      copy[i] = in.d[i].clone();
+    }
+    return new TspAssignmentMethod(copy).assignment(in.succ, AssignmentEngine.MAX_PENALTY);
+  }
+
+}
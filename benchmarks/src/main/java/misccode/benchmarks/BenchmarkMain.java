@@ -0,0 +1,25 @@
+package misccode.benchmarks;
+
+import java.util.*;
+
+/**
+ * Entry point of benchmarks.jar: runs JMH with the GC profiler and JSON
+ * results (jmh-result.json) unless the command line already chooses a
+ * profiler or a result format. All other options go to JMH unchanged.
+ */
+public class BenchmarkMain {
+
+  public static void main(String[] args) throws Exception {
+    List<String> argv = new ArrayList<>(Arrays.asList(args));
+    if (!argv.contains("-prof")) {
+      argv.add("-prof");
+      argv.add("gc");
+    }
+    if (!argv.contains("-rf")) {
+      argv.add("-rf");
+      argv.add("json");
+    }
+    org.openjdk.jmh.Main.main(argv.toArray(new String[0]));
+  }
+
+}
@@ -0,0 +1,50 @@
+package misccode.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import misccode.ConnectedComponents;
+import misccode.CsrDigraph;
+import misccode.ParallelConnectedComponents;
+
+/**
+ * Sequential Kosaraju against the parallel decomposition; the threads
+ * parameter gives the scaling curve of the latter.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConnectedComponentsBenchmark {
+
+  @Param({"100000"})
+  int V;
+
+  @Param({"200000", "1000000"})
+  int E;
+
+  @Param({"1", "2", "4", "8"})
+  int threads;
+
+  private CsrDigraph g;
+
+  @Setup
+  public void setup() {
+    g = Inputs.digraph(V, E);
+  }
+
+  @Benchmark
+  public List<List<Integer>> sequential() {
+    return ConnectedComponents.computeComponents(g);
+  }
+
+  @Benchmark
+  public int[] parallel() {
+    return ParallelConnectedComponents.computeLabels(g, threads);
+  }
+
+}
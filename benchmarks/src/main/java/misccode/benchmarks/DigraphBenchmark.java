@@ -0,0 +1,75 @@
+package misccode.benchmarks;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import misccode.CsrDigraph;
+import misccode.Digraph;
+import misccode.DigraphLoader;
+
+/**
+ * Loading a text edge list of V vertices and E edges: the Scanner and
+ * addEdge loop of Digraph.main against the parallel DigraphLoader, plus
+ * the binary and compressed formats.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DigraphBenchmark {
+
+  @Param({"10000", "100000"})
+  int V;
+
+  @Param({"100000", "1000000"})
+  int E;
+
+  private Path text;
+  private Path binary;
+  private Path compressed;
+
+  @Setup
+  public void setup() throws IOException {
+    text = Inputs.edgeListFile(V, E);
+    CsrDigraph g = DigraphLoader.loadText(text);
+    binary = Files.createTempFile("digraph", ".bin");
+    binary.toFile().deleteOnExit();
+    DigraphLoader.writeBinary(g, binary);
+    compressed = Files.createTempFile("digraph", ".dgz");
+    compressed.toFile().deleteOnExit();
+    DigraphLoader.writeCompressed(g, compressed);
+  }
+
+  @Benchmark
+  public Digraph scanner() throws IOException {
+    Scanner s = new Scanner(text.toFile());
+    Digraph g = new Digraph(s.nextInt());
+    while (s.hasNextInt()) {
+      g.addEdge(s.nextInt(), s.nextInt());
+    }
+    s.close();
+    return g;
+  }
+
+  @Benchmark
+  public CsrDigraph loadText() throws IOException {
+    return DigraphLoader.loadText(text);
+  }
+
+  @Benchmark
+  public CsrDigraph loadBinary() throws IOException {
+    return DigraphLoader.loadBinary(binary, Runtime.getRuntime().availableProcessors());
+  }
+
+  @Benchmark
+  public CsrDigraph loadCompressed() throws IOException {
+    return DigraphLoader.loadCompressed(compressed);
+  }
+
+}
@@ -0,0 +1,57 @@
+package misccode.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import misccode.CsrDigraph;
+import misccode.DigraphTraversal;
+
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DigraphTraversalBenchmark {
+
+  @Param({"100000"})
+  int V;
+
+  @Param({"200000", "1000000"})
+  int E;
+
+  private DigraphTraversal traversal;
+  private int[] order;
+  private final DigraphTraversal.Visitor visitor = new DigraphTraversal.Visitor() {};
+
+  @Setup
+  public void setup() {
+    CsrDigraph g = Inputs.digraph(V, E);
+    traversal = new DigraphTraversal(g);
+    order = new int[V];
+    // Builds the reverse graph once, outside the measurement
+    traversal.directionOptimizingBfs(0);
+  }
+
+  @Benchmark
+  public int bfs() {
+    return traversal.bfs(0);
+  }
+
+  @Benchmark
+  public int directionOptimizingBfs() {
+    return traversal.directionOptimizingBfs(0);
+  }
+
+  @Benchmark
+  public void dfs() {
+    traversal.dfs(visitor);
+  }
+
+  @Benchmark
+  public boolean topologicalSort() {
+    return traversal.topologicalSort(order);
+  }
+
+}
@@ -0,0 +1,145 @@
+package misccode.benchmarks;
+
+import java.util.*;
+import java.io.*;
+import java.nio.file.*;
+
+import misccode.CsrDigraph;
+
+/**
+ * Seeded synthetic inputs, so that every run of a benchmark sees the same
+ * instance for the same parameters.
+ */
+final class Inputs {
+
+  static final long SEED = 20161019L;
+
+  private Inputs() {}
+
+  /**
+   * Returns {v, w} for N items in the solvers' 1-based layout (index 0 is
+   * unused), with values in [1, maxValue] and weights in [1, maxWeight].
+   */
+  static int[][] knapsackItems(int N, int maxValue, int maxWeight) {
+    Random rand = new Random(SEED);
+    int[] v = new int[N + 1];
+    int[] w = new int[N + 1];
+    for (int i = 1; i <= N; i++) {
+      v[i] = 1 + rand.nextInt(maxValue);
+      w[i] = 1 + rand.nextInt(maxWeight);
+    }
+    return new int[][] {v, w};
+  }
+
+  /**
+   * Returns {x, y} coordinates of n cities uniform in a 1000 x 1000 square.
+   */
+  static double[][] cities(int n) {
+    Random rand = new Random(SEED);
+    double[] x = new double[n];
+    double[] y = new double[n];
+    for (int i = 0; i < n; i++) {
+      x[i] = 1000 * rand.nextDouble();
+      y[i] = 1000 * rand.nextDouble();
+    }
+    return new double[][] {x, y};
+  }
+
+  /**
+   * Returns the Euclidean distance matrix of n random cities, with
+   * Double.MAX_VALUE on the diagonal as TspAssignmentMethod expects.
+   */
+  static double[][] euclideanDistances(int n) {
+    double[][] xy = cities(n);
+    double[][] d = new double[n][n];
+    for (int i = 0; i < n; i++) {
+      for (int j = 0; j < n; j++) {
+        d[i][j] = i == j ? Double.MAX_VALUE : Math.hypot(xy[0][i] - xy[0][j], xy[1][i] - xy[1][j]);
+      }
+    }
+    return d;
+  }
+
+  /**
+   * Returns a random asymmetric integer distance matrix with
+   * Integer.MAX_VALUE on the diagonal as TSPReducedMatrix expects.
+   */
+  static int[][] integerDistances(int n, int maxDist) {
+    Random rand = new Random(SEED);
+    int[][] d = new int[n][n];
+    for (int i = 0; i < n; i++) {
+      for (int j = 0; j < n; j++) {
+        d[i][j] = i == j ? Integer.MAX_VALUE : 1 + rand.nextInt(maxDist);
+      }
+    }
+    return d;
+  }
+
+  static Integer[] integers(int n) {
+    Random rand = new Random(SEED);
+    Integer[] a = new Integer[n];
+    for (int i = 0; i < n; i++) {
+      a[i] = rand.nextInt();
+    }
+    return a;
+  }
+
+  /**
+   * Returns {from, to} for E random edges over V vertices.
+   */
+  static int[][] edges(int V, int E) {
+    Random rand = new Random(SEED);
+    int[] from = new int[E];
+    int[] to = new int[E];
+    for (int k = 0; k < E; k++) {
+      from[k] = rand.nextInt(V);
+      to[k] = rand.nextInt(V);
+    }
+    return new int[][] {from, to};
+  }
+
+  static CsrDigraph digraph(int V, int E) {
+    int[][] edges = edges(V, E);
+    int[] offsets = new int[V + 1];
+    for (int u: edges[0]) {
+      offsets[u + 1]++;
+    }
+    for (int v = 0; v < V; v++) {
+      offsets[v + 1] += offsets[v];
+    }
+    int[] next = Arrays.copyOf(offsets, V);
+    int[] targets = new int[E];
+    for (int k = 0; k < E; k++) {
+      targets[next[edges[0][k]]++] = edges[1][k];
+    }
+    return new CsrDigraph(V, offsets, targets);
+  }
+
+  /**
+   * Writes a random digraph as a text edge list to a temporary file that is
+   * deleted on exit.
+   */
+  static Path edgeListFile(int V, int E) throws IOException {
+    int[][] edges = edges(V, E);
+    Path path = Files.createTempFile("digraph", ".txt");
+    path.toFile().deleteOnExit();
+    try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(path))) {
+      out.println(V);
+      for (int k = 0; k < E; k++) {
+        out.print(edges[0][k]);
+        out.print(' ');
+        out.println(edges[1][k]);
+      }
+    }
+    return path;
+  }
+
+  /**
+   * Returns a stream that discards everything, for silencing solvers that
+   * print their progress.
+   */
+  static PrintStream nullStream() {
+    return new PrintStream(OutputStream.nullOutputStream());
+  }
+
+}
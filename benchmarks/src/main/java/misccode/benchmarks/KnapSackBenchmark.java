@@ -0,0 +1,45 @@
+package misccode.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import misccode.KnapSack;
+import misccode.KnapSackHugeData;
+
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KnapSackBenchmark {
+
+  @Param({"100", "500"})
+  int N;
+
+  @Param({"1000", "10000"})
+  int W;
+
+  private int[] v;
+  private int[] w;
+
+  @Setup
+  public void setup() {
+    // Average weight W / 10 so that a good share of the items fits
+    int[][] items = Inputs.knapsackItems(N, 1000, Math.max(1, W / 5));
+    v = items[0];
+    w = items[1];
+  }
+
+  @Benchmark
+  public long bottomUp() {
+    return KnapSack.solve(v, w, W);
+  }
+
+  @Benchmark
+  public long topDown() {
+    return KnapSackHugeData.solve(v, w, W);
+  }
+
+}
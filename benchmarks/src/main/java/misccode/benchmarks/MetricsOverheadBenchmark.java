@@ -0,0 +1,101 @@
+package misccode.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import misccode.QuickSort;
+
+/**
+ * Cost of the SolverMetrics hooks on QuickSort, whose comparison and swap
+ * counters sit on the hottest path of any instrumented solver. The
+ * baseline is an uninstrumented copy of the same algorithm; "disabled"
+ * runs the instrumented sort in a default JVM and should stay within 1% of
+ * the baseline; "enabled" runs it with counters and timers switched on.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+public class MetricsOverheadBenchmark {
+
+  @Param({"100000"})
+  int n;
+
+  private Integer[] input;
+  private final QuickSort<Integer> qsort = new QuickSort<>();
+  private final PlainQuickSort<Integer> plain = new PlainQuickSort<>();
+
+  @Setup
+  public void setup() {
+    input = Inputs.integers(n);
+  }
+
+  @Benchmark
+  public Integer[] baseline() {
+    Integer[] a = input.clone();
+    plain.sort(a);
+    return a;
+  }
+
+  @Benchmark
+  public Integer[] disabled() {
+    Integer[] a = input.clone();
+    qsort.sort(a);
+    return a;
+  }
+
+  @Benchmark
+  @Fork(value = 3, jvmArgsAppend = {"-Dsolver.metrics=true", "-Dsolver.metrics.timers=true"})
+  public Integer[] enabled() {
+    Integer[] a = input.clone();
+    qsort.sort(a);
+    return a;
+  }
+
+  // QuickSort as it was before the metrics hooks
+  private static class PlainQuickSort<T extends Comparable<T>> {
+    private Random rand = new Random();
+
+    void sort(T[] a) {
+      sort(a, 0, a.length - 1);
+    }
+
+    private void sort(T[] a, int lo, int hi) {
+      if (lo >= hi) {
+        return;
+      }
+      int pivot = partition(a, lo, hi);
+      sort(a, lo, pivot - 1);
+      sort(a, pivot + 1, hi);
+    }
+
+    private int partition(T[] a, int lo, int hi) {
+      int idx = lo + rand.nextInt(hi - lo + 1);
+      T pivot = a[idx];
+      swap(a, lo, idx);
+      int left = lo;
+      for (int i = lo + 1; i <= hi; i++) {
+        if (less(a[i], pivot)) {
+          swap(a, i, ++left);
+        }
+      }
+      swap(a, lo, left);
+      return left;
+    }
+
+    private boolean less(T a, T b) {
+      return a.compareTo(b) < 0;
+    }
+
+    private void swap(T[] a, int i, int j) {
+      T tmp = a[i];
+      a[i] = a[j];
+      a[j] = tmp;
+    }
+  }
+
+}
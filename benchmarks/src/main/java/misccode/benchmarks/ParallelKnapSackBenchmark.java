@@ -0,0 +1,51 @@
+package misccode.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import misccode.KnapSackHugeData;
+import misccode.ParallelKnapSack;
+
+/**
+ * Scaling curve of the parallel top-down knapsack from 1 to 32 threads,
+ * against the sequential top-down solver it must agree with.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelKnapSackBenchmark {
+
+  @Param({"200", "500"})
+  int N;
+
+  @Param({"10000"})
+  int W;
+
+  @Param({"1", "2", "4", "8", "16", "32"})
+  int threads;
+
+  private int[] v;
+  private int[] w;
+
+  @Setup
+  public void setup() {
+    int[][] items = Inputs.knapsackItems(N, 1000, Math.max(1, W / 5));
+    v = items[0];
+    w = items[1];
+  }
+
+  @Benchmark
+  public long sequential() {
+    return KnapSackHugeData.solve(v, w, W);
+  }
+
+  @Benchmark
+  public long parallel() {
+    return ParallelKnapSack.solve(v, w, W, threads);
+  }
+
+}
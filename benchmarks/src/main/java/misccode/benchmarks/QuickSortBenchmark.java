@@ -0,0 +1,36 @@
+package misccode.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import misccode.QuickSort;
+
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuickSortBenchmark {
+
+  @Param({"1000", "100000"})
+  int n;
+
+  private Integer[] input;
+  private final QuickSort<Integer> qsort = new QuickSort<>();
+
+  @Setup
+  public void setup() {
+    input = Inputs.integers(n);
+  }
+
+  @Benchmark
+  public Integer[] sort() {
+    // Includes the copy of the unsorted input
+    Integer[] a = input.clone();
+    qsort.sort(a);
+    return a;
+  }
+
+}
@@ -0,0 +1,51 @@
+package misccode.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import misccode.AssignmentEngine;
+import misccode.SymmetricDistances;
+import misccode.TspAssignmentMethod;
+
+/**
+ * Hungarian assignment over a dense double matrix (8 bytes per entry)
+ * against packed float (4 bytes per city pair) and TSPLIB-rounded short
+ * (2 bytes per city pair) storage.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class SymmetricDistancesBenchmark {
+
+  @Param({"500", "2000", "5000"})
+  int n;
+
+  @Param({"dense", "float", "tsplib"})
+  String storage;
+
+  private TspAssignmentMethod tsp;
+  private int[] succ;
+
+  @Setup
+  public void setup() {
+    if (storage.equals("dense")) {
+      tsp = new TspAssignmentMethod(Inputs.euclideanDistances(n));
+    } else {
+      double[][] xy = Inputs.cities(n);
+      tsp = new TspAssignmentMethod(storage.equals("float")
+          ? SymmetricDistances.packedFloat(xy[0], xy[1])
+          : SymmetricDistances.quantized(xy[0], xy[1], 1.0));
+    }
+    succ = new int[n];
+  }
+
+  @Benchmark
+  public double hungarian() {
+    return tsp.assignment(succ, AssignmentEngine.HUNGARIAN);
+  }
+
+}
@@ -0,0 +1,62 @@
+package misccode.benchmarks;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import misccode.AssignmentEngine;
+import misccode.TSPReducedMatrix;
+import misccode.TspAssignmentMethod;
+
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TspBenchmark {
+
+  @Param({"25", "50", "100"})
+  int n;
+
+  private double[][] euclidean;
+  private int[][] integer;
+  private Integer[] tour;
+  private int[] succ;
+  private PrintStream stdout;
+
+  @Setup
+  public void setup() {
+    euclidean = Inputs.euclideanDistances(n);
+    integer = Inputs.integerDistances(n, 1000);
+    tour = new Integer[n + 1];
+    succ = new int[n];
+    // TSPReducedMatrix prints every intermediate matrix
+    stdout = System.out;
+    System.setOut(Inputs.nullStream());
+  }
+
+  @TearDown
+  public void tearDown() {
+    System.setOut(stdout);
+  }
+
+  @Benchmark
+  public double assignmentMethod() {
+    // The max-penalty engine reduces the matrix it was given in place
+    double[][] d = new double[n][];
+    for (int i = 0; i < n; i++) {
+      d[i] = euclidean[i].clone();
+    }
+    // minDistTour rejects the subtours that most random instances give, so
+    // time the assignment stage it runs, i.e. nearly all of its work
+    return new TspAssignmentMethod(d).assignment(succ, AssignmentEngine.MAX_PENALTY);
+  }
+
+  @Benchmark
+  public long reducedMatrix() {
+    return new TSPReducedMatrix(n, integer).assignmentMethod(tour);
+  }
+
+}
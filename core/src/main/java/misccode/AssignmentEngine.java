@@ -0,0 +1,21 @@
+package misccode;
+
+/**
+ * Algorithms available for the assignment stage of the TSP solvers.
+ */
+public enum AssignmentEngine {
+
+  /**
+   * Greedy rule that repeatedly assigns the zero of the reduced matrix with
+   * the largest penalty. Forbids 2-cycles but is not optimal.
+   */
+  MAX_PENALTY,
+
+  /**
+   * Hungarian method with shortest augmenting paths (Jonker-Volgenant style),
+   * O(n^3). The assignment is optimal, so its cost is a lower bound on the
+   * length of any tour.
+   */
+  HUNGARIAN
+
+}
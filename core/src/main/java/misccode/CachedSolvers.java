@@ -0,0 +1,232 @@
+package misccode;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Solver entry points that memoize their results by input content.
+ *
+ * Each instance is keyed by a 128-bit fingerprint, two xxHash64 digests
+ * with different seeds, of its input arrays, so resubmitting the same city
+ * matrix or item set returns the cached answer without solving again.
+ * Knapsack caches the last DP row instead of a single value: a row
+ * computed for capacity W answers every W' <= W, and a larger W replaces it.
+ *
+ * Each of the three solvers has its own cache bounded by maxBytes in memory
+ * and, when a directory is given, its own subdirectory on disk.
+ */
+public class CachedSolvers {
+
+  private static final long SEED1 = 0L;
+  private static final long SEED2 = 0x2545F4914F6CDD1DL;
+
+  private final ResultCache<Tour> tspAssignment;
+  private final ResultCache<Tour> tspReducedMatrix;
+  private final ResultCache<long[]> knapsack;
+
+  public CachedSolvers(long maxBytes) {
+    this(maxBytes, null);
+  }
+
+  public CachedSolvers(long maxBytes, Path dir) {
+    tspAssignment = new ResultCache<>(TOUR_CODEC, maxBytes, dir == null ? null : dir.resolve("tsp-assignment"));
+    tspReducedMatrix = new ResultCache<>(TOUR_CODEC, maxBytes, dir == null ? null : dir.resolve("tsp-reduced-matrix"));
+    knapsack = new ResultCache<>(ROW_CODEC, maxBytes, dir == null ? null : dir.resolve("knapsack"));
+  }
+
+  /**
+   * Cached TspAssignmentMethod.minDistTour over the distance matrix d.
+   * Unlike the solver itself, this leaves d unchanged, so the same array
+   * can be submitted again.
+   */
+  public double minDistTour(double[][] d, Integer[] tour) {
+    Fingerprint key = new Fingerprint();
+    for (double[] row: d) {
+      key.update(row);
+    }
+    String k = key.hex();
+    Tour cached = tspAssignment.get(k);
+    if (cached != null) {
+      cached.copyTo(tour);
+      return Double.longBitsToDouble(cached.cost);
+    }
+    // The solver reduces the matrix it is given in place
+    double[][] copy = new double[d.length][];
+    for (int i = 0; i < d.length; i++) {
+      copy[i] = d[i].clone();
+    }
+    double dist = new TspAssignmentMethod(copy).minDistTour(tour);
+    tspAssignment.put(k, new Tour(Double.doubleToLongBits(dist), tour));
+    return dist;
+  }
+
+  /**
+   * Cached TSPReducedMatrix.assignmentMethod over the distance matrix d.
+   */
+  public long assignmentMethod(int[][] d, Integer[] tour) {
+    Fingerprint key = new Fingerprint();
+    for (int[] row: d) {
+      key.update(row);
+    }
+    String k = key.hex();
+    Tour cached = tspReducedMatrix.get(k);
+    if (cached != null) {
+      cached.copyTo(tour);
+      return cached.cost;
+    }
+    long dist = new TSPReducedMatrix(d.length, d).assignmentMethod(tour);
+    tspReducedMatrix.put(k, new Tour(dist, tour));
+    return dist;
+  }
+
+  /**
+   * Cached KnapSack.solve.
+   */
+  public long knapsack(int[] v, int[] w, int W) {
+    Fingerprint key = new Fingerprint();
+    key.update(v);
+    key.update(w);
+    String k = key.hex();
+    long[] row = knapsack.get(k);
+    if (row == null || row.length <= W) {
+      row = KnapSack.solveRow(v, w, W);
+      knapsack.put(k, row);
+    }
+    return row[W];
+  }
+
+  private static class Fingerprint {
+    private final XxHash64 h1 = new XxHash64(SEED1);
+    private final XxHash64 h2 = new XxHash64(SEED2);
+
+    private void update(int[] a) {
+      h1.update(a);
+      h2.update(a);
+    }
+
+    private void update(double[] a) {
+      h1.update(a);
+      h2.update(a);
+    }
+
+    private String hex() {
+      return String.format("%016x%016x", h1.digest(), h2.digest());
+    }
+  }
+
+  // A tour of n + 1 cities and its cost; double costs are stored as their bits
+  private static class Tour {
+    private final long cost;
+    private final int[] cities;
+
+    private Tour(long cost, int[] cities) {
+      this.cost = cost;
+      this.cities = cities;
+    }
+
+    private Tour(long cost, Integer[] tour) {
+      this.cost = cost;
+      cities = new int[tour.length];
+      for (int i = 0; i < tour.length; i++) {
+        cities[i] = tour[i];
+      }
+    }
+
+    private void copyTo(Integer[] tour) {
+      for (int i = 0; i < cities.length; i++) {
+        tour[i] = cities[i];
+      }
+    }
+  }
+
+  private static final ResultCache.Codec<Tour> TOUR_CODEC = new ResultCache.Codec<Tour>() {
+    public void write(DataOutput out, Tour tour) throws IOException {
+      out.writeLong(tour.cost);
+      out.writeInt(tour.cities.length);
+      for (int city: tour.cities) {
+        out.writeInt(city);
+      }
+    }
+
+    public Tour read(DataInput in) throws IOException {
+      long cost = in.readLong();
+      int[] cities = new int[in.readInt()];
+      for (int i = 0; i < cities.length; i++) {
+        cities[i] = in.readInt();
+      }
+      return new Tour(cost, cities);
+    }
+
+    public long weight(Tour tour) {
+      return 32L + 4L * tour.cities.length;
+    }
+  };
+
+  private static final ResultCache.Codec<long[]> ROW_CODEC = new ResultCache.Codec<long[]>() {
+    public void write(DataOutput out, long[] row) throws IOException {
+      out.writeInt(row.length);
+      for (long x: row) {
+        out.writeLong(x);
+      }
+    }
+
+    public long[] read(DataInput in) throws IOException {
+      long[] row = new long[in.readInt()];
+      for (int i = 0; i < row.length; i++) {
+        row[i] = in.readLong();
+      }
+      return row;
+    }
+
+    public long weight(long[] row) {
+      return 16L + 8L * row.length;
+    }
+  };
+
+  public static void main(String[] args) throws IOException {
+    if (args.length == 0) {
+      System.out.println("Usage: java CachedSolvers <knapsack-data-file> [cache-dir]");
+      System.exit(1);
+    }
+
+    Scanner s = new Scanner(new File(args[0]));
+    final int W = s.nextInt();
+    final int N = s.nextInt() + 1;
+    int[] v = new int[N], w = new int[N];
+    for (int i = 1; i < N; i++) {
+      v[i] = s.nextInt();
+      w[i] = s.nextInt();
+    }
+    s.close();
+
+    CachedSolvers solvers = new CachedSolvers(64L << 20, args.length > 1 ? Paths.get(args[1]) : null);
+    // The first call fills the cache, the smaller capacities reuse its row
+    for (int cap: new int[] {W, W, W / 2, W / 4}) {
+      long start = System.nanoTime();
+      long value = solvers.knapsack(v, w, cap);
+      System.out.printf("W = %d: optimal solution value %d (%.3f ms)%n", cap, value, (System.nanoTime() - start) / 1e6);
+      if (value != KnapSack.solve(v, w, cap)) {
+        throw new RuntimeException("Cached knapsack value differs from KnapSack.solve for W = " + cap);
+      }
+    }
+
+    // Resubmitting the same matrix must hit the cache and give the same
+    // tour. The cheap edges i -> i + 1 make the assignment a single tour.
+    final int n = 50;
+    double[][] d = new double[n][n];
+    for (int i = 0; i < n; i++) {
+      for (int j = 0; j < n; j++) {
+        d[i][j] = i == j ? Double.MAX_VALUE : (j == (i + 1) % n ? 1.0 : 10.0 + (i * 31 + j * 17) % 7);
+      }
+    }
+    Integer[] first = new Integer[n + 1];
+    Integer[] second = new Integer[n + 1];
+    double dist = solvers.minDistTour(d, first);
+    if (solvers.minDistTour(d, second) != dist || !Arrays.equals(first, second)) {
+      throw new RuntimeException("Resubmitted TSP matrix gives a different tour");
+    }
+    System.out.printf("TSP distance on resubmission: %f%n", dist);
+  }
+
+}
@@ -0,0 +1,115 @@
+package misccode;
+
+import java.util.*;
+import java.nio.file.Paths;
+import java.io.IOException;
+
+public class ConnectedComponents {
+
+  /**
+   * Computes the strongly connected components of g with Kosaraju's
+   * two-pass algorithm. Components are listed sinks first, i.e. in reverse
+   * topological order of the condensation.
+   */
+  public static List<List<Integer>> computeComponents(Digraph g) {
+    return computeComponents(new CsrDigraph(g));
+  }
+
+  public static List<List<Integer>> computeComponents(CsrDigraph g) {
+    final int V = g.V();
+
+    // Backward pass (i.e. pass on the reverse graph)
+    List<Integer> seq = new ArrayList<>(V);
+    int[] postorder = postorder(g.reverse());
+
+    // Forward pass to compute components
+    List<List<Integer>> scc = new ArrayList<>();
+    boolean[] marked = new boolean[V];
+    int[] stack = new int[V];
+    for (int i = V - 1; i >= 0; i--) {
+      int s = postorder[i];
+      if (marked[s]) {
+        continue;
+      }
+      seq.clear();
+      int top = 0;
+      stack[top++] = s;
+      marked[s] = true;
+      while (top > 0) {
+        int v = stack[--top];
+        seq.add(v);
+        for (int k = g.begin(v); k < g.end(v); k++) {
+          int w = g.target(k);
+          if (!marked[w]) {
+            marked[w] = true;
+            stack[top++] = w;
+          }
+        }
+      }
+      scc.add(new ArrayList<>(seq));
+    }
+    return scc;
+  }
+
+  /**
+   * Labels every vertex with the largest vertex of its component, which is
+   * the canonical form shared with ParallelConnectedComponents.
+   */
+  public static int[] labels(List<List<Integer>> scc, int V) {
+    int[] label = new int[V];
+    for (List<Integer> component: scc) {
+      int max = -1;
+      for (int v: component) {
+        max = Math.max(max, v);
+      }
+      for (int v: component) {
+        label[v] = max;
+      }
+    }
+    return label;
+  }
+
+  // Iterative depth-first postorder over all vertices of g
+  private static int[] postorder(CsrDigraph g) {
+    final int V = g.V();
+    int[] order = new int[V];
+    int n = 0;
+    boolean[] marked = new boolean[V];
+    int[] stack = new int[V];
+    int[] edge = new int[V];
+    for (int s = 0; s < V; s++) {
+      if (marked[s]) {
+        continue;
+      }
+      int top = 0;
+      stack[top++] = s;
+      marked[s] = true;
+      edge[s] = g.begin(s);
+      while (top > 0) {
+        int v = stack[top - 1];
+        if (edge[v] < g.end(v)) {
+          int w = g.target(edge[v]++);
+          if (!marked[w]) {
+            marked[w] = true;
+            edge[w] = g.begin(w);
+            stack[top++] = w;
+          }
+        } else {
+          order[n++] = v;
+          top--;
+        }
+      }
+    }
+    return order;
+  }
+
+  public static void main(String[] args) throws IOException {
+    CsrDigraph g = DigraphLoader.loadText(Paths.get(args[0]));
+    List<List<Integer>> scc = computeComponents(g);
+    System.out.println(scc.size() + " components");
+    for (List<Integer> component: scc) {
+      System.out.println(component);
+    }
+  }
+
+}
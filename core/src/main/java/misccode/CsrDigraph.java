@@ -0,0 +1,105 @@
+package misccode;
+
+import java.util.*;
+
+/**
+ * Immutable compressed sparse row (CSR) view of a digraph: the targets of
+ * the edges going out of vertex v are targets[offsets[v] .. offsets[v+1]).
+ */
+public class CsrDigraph {
+
+  // Number of vertices
+  private final int V;
+
+  // offsets[v] is the index in targets of the first edge going out of v
+  private final int[] offsets;
+
+  // Heads of the edges, grouped by tail vertex
+  private final int[] targets;
+
+  /**
+   * Constructs a CSR digraph directly from its arrays (not copied).
+   */
+  public CsrDigraph(int V, int[] offsets, int[] targets) {
+    if (offsets.length != V + 1 || offsets[V] != targets.length) {
+      throw new IllegalArgumentException();
+    }
+    this.V = V;
+    this.offsets = offsets;
+    this.targets = targets;
+  }
+
+  /**
+   * Constructs a CSR snapshot of digraph g.
+   */
+  public CsrDigraph(Digraph g) {
+    V = g.V();
+    offsets = new int[V + 1];
+    for (int v = 0; v < V; v++) {
+      offsets[v + 1] = offsets[v] + g.outdegree(v);
+    }
+    targets = new int[offsets[V]];
+    for (int v = 0; v < V; v++) {
+      int k = offsets[v];
+      for (int w: g.adj(v)) {
+        targets[k++] = w;
+      }
+    }
+  }
+
+  public int V() {
+    return V;
+  }
+
+  public int E() {
+    return targets.length;
+  }
+
+  /**
+   * Returns the index of the first edge going out of vertex v.
+   */
+  public int begin(int v) {
+    return offsets[v];
+  }
+
+  /**
+   * Returns the index one past the last edge going out of vertex v.
+   */
+  public int end(int v) {
+    return offsets[v + 1];
+  }
+
+  /**
+   * Returns the head of the k-th edge.
+   */
+  public int target(int k) {
+    return targets[k];
+  }
+
+  public int outdegree(int v) {
+    return offsets[v + 1] - offsets[v];
+  }
+
+  /**
+   * Returns the reverse of this digraph, built with a counting pass over
+   * the in-degrees followed by a placement pass.
+   */
+  public CsrDigraph reverse() {
+    int[] revOffsets = new int[V + 1];
+    for (int k = 0; k < targets.length; k++) {
+      revOffsets[targets[k] + 1]++;
+    }
+    for (int v = 0; v < V; v++) {
+      revOffsets[v + 1] += revOffsets[v];
+    }
+    int[] next = Arrays.copyOf(revOffsets, V);
+    int[] revTargets = new int[targets.length];
+    for (int u = 0; u < V; u++) {
+      for (int k = offsets[u]; k < offsets[u + 1]; k++) {
+        revTargets[next[targets[k]]++] = u;
+      }
+    }
+    return new CsrDigraph(V, revOffsets, revTargets);
+  }
+
+}
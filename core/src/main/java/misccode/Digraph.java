@@ -1,3 +1,5 @@
+package misccode;
+
 import java.util.*;
 import java.io.File;
 import java.io.IOException;
@@ -43,6 +45,22 @@ public class Digraph {
     return E;
   }
   
+  /**
+   * Returns the vertices adjacent from vertex v.
+   */
+  public Iterable<Integer> adj(int v) {
+    validate(v);
+    return adj[v];
+  }
+  
+  /**
+   * Returns the number of edges going out of vertex v.
+   */
+  public int outdegree(int v) {
+    validate(v);
+    return adj[v].size();
+  }
+  
   private void validate(int v) {
     if (v < 0 || v >= V) {
       throw new IllegalArgumentException();
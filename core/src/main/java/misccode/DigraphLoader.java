@@ -0,0 +1,382 @@
+package misccode;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+/**
+ * Bulk loading and storage of digraphs as CSR.
+ *
+ * Three on-disk formats are supported:
+ *   - text: the number of vertices followed by one "u v" edge per line, the
+ *     format read by Digraph.main;
+ *   - binary: a header (magic, V, E) followed by E little-endian int pairs;
+ *   - compressed: a header (magic, V, E) followed, for every vertex, by its
+ *     out-degree and its sorted targets as delta-encoded varints.
+ *
+ * Text and binary files are memory-mapped and split into segments that are
+ * parsed in parallel into per-segment edge buffers. The buffers are merged
+ * into a CSR in two passes: count the out-degrees, then place every edge at
+ * a per-vertex cursor. Edges of one vertex may therefore come out in any
+ * order.
+ */
+public class DigraphLoader {
+
+  private static final int BINARY_MAGIC = 0x44474231;     // "DGB1"
+  private static final int COMPRESSED_MAGIC = 0x44475a31; // "DGZ1"
+
+  // A single mapping can cover at most 2 GB
+  private static final long MAX_SEGMENT = 1L << 30;
+
+  /**
+   * Loads a text edge list using all available processors.
+   */
+  public static CsrDigraph loadText(Path path) throws IOException {
+    return loadText(path, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Loads a text edge list using the given number of threads.
+   */
+  public static CsrDigraph loadText(Path path, int threads) throws IOException {
+    try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = ch.size();
+
+      // Header: the number of vertices
+      ByteBuffer head = ch.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, 64));
+      long[] header = new long[2];
+      if (!nextInt(head, 0, head.limit(), header)) {
+        throw new IOException("Missing number of vertices in " + path);
+      }
+      final int V = (int) header[0];
+
+      // Split the rest of the file at line boundaries
+      int segments = (int) Math.max(threads, (size + MAX_SEGMENT - 1) / MAX_SEGMENT);
+      long[] bounds = new long[segments + 1];
+      bounds[0] = header[1];
+      bounds[segments] = size;
+      for (int i = 1; i < segments; i++) {
+        long pos = Math.max(bounds[i - 1], i * (size / segments));
+        bounds[i] = Math.min(size, nextLine(ch, pos));
+      }
+
+      IntBuffer[] edges = parallel(threads, segments, i -> {
+        long start = bounds[i];
+        long len = bounds[i + 1] - start;
+        ByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, start, len);
+        return parseEdges(buf, V, len);
+      });
+      return toCsr(V, edges, threads);
+    }
+  }
+
+  /**
+   * Loads a binary edge list using the given number of threads.
+   */
+  public static CsrDigraph loadBinary(Path path, int threads) throws IOException {
+    try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer head = ch.map(FileChannel.MapMode.READ_ONLY, 0, 12).order(ByteOrder.LITTLE_ENDIAN);
+      if (head.getInt(0) != BINARY_MAGIC) {
+        throw new IOException("Not a binary edge list: " + path);
+      }
+      final int V = head.getInt(4);
+      final long E = head.getInt(8) & 0xffffffffL;
+
+      // Segments hold whole edges, i.e. a multiple of 8 bytes
+      int segments = (int) Math.max(threads, (8 * E + MAX_SEGMENT - 1) / MAX_SEGMENT);
+      long perSegment = (E + segments - 1) / segments;
+      IntBuffer[] edges = parallel(threads, segments, i -> {
+        long first = Math.min(E, i * perSegment);
+        long last = Math.min(E, first + perSegment);
+        IntBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 12 + 8 * first, 8 * (last - first))
+            .order(ByteOrder.LITTLE_ENDIAN)
+            .asIntBuffer();
+        for (int k = 0; k < buf.limit(); k++) {
+          validate(buf.get(k), V);
+        }
+        return buf;
+      });
+      return toCsr(V, edges, threads);
+    }
+  }
+
+  /**
+   * Writes g as a binary edge list.
+   */
+  public static void writeBinary(CsrDigraph g, Path path) throws IOException {
+    try (FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer buf = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+      buf.putInt(BINARY_MAGIC).putInt(g.V()).putInt(g.E());
+      for (int u = 0; u < g.V(); u++) {
+        for (int k = g.begin(u); k < g.end(u); k++) {
+          if (buf.remaining() < 8) {
+            drain(ch, buf);
+          }
+          buf.putInt(u).putInt(g.target(k));
+        }
+      }
+      drain(ch, buf);
+    }
+  }
+
+  /**
+   * Writes g with delta/varint-compressed adjacency lists.
+   */
+  public static void writeCompressed(CsrDigraph g, Path path) throws IOException {
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16))) {
+      out.writeInt(COMPRESSED_MAGIC);
+      out.writeInt(g.V());
+      out.writeInt(g.E());
+      int[] adj = new int[0];
+      for (int v = 0; v < g.V(); v++) {
+        int degree = g.outdegree(v);
+        if (adj.length < degree) {
+          adj = new int[degree];
+        }
+        for (int k = 0; k < degree; k++) {
+          adj[k] = g.target(g.begin(v) + k);
+        }
+        Arrays.sort(adj, 0, degree);
+        writeVarint(out, degree);
+        int prev = 0;
+        for (int k = 0; k < degree; k++) {
+          writeVarint(out, adj[k] - prev);
+          prev = adj[k];
+        }
+      }
+    }
+  }
+
+  /**
+   * Loads a digraph written by writeCompressed. Adjacency lists come out
+   * sorted.
+   */
+  public static CsrDigraph loadCompressed(Path path) throws IOException {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+      if (in.readInt() != COMPRESSED_MAGIC) {
+        throw new IOException("Not a compressed digraph: " + path);
+      }
+      int V = in.readInt();
+      int E = in.readInt();
+      int[] offsets = new int[V + 1];
+      int[] targets = new int[E];
+      int k = 0;
+      for (int v = 0; v < V; v++) {
+        int degree = readVarint(in);
+        int prev = 0;
+        for (int i = 0; i < degree; i++) {
+          prev += readVarint(in);
+          targets[k++] = validate(prev, V);
+        }
+        offsets[v + 1] = k;
+      }
+      return new CsrDigraph(V, offsets, targets);
+    }
+  }
+
+  private interface Segment {
+    IntBuffer load(int i) throws IOException;
+  }
+
+  // Runs load(0 .. segments) on a pool of the given size
+  private static IntBuffer[] parallel(int threads, int segments, Segment segment) throws IOException {
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    try {
+      return pool.submit(() -> IntStream.range(0, segments).parallel()
+          .mapToObj(i -> {
+            try {
+              return segment.load(i);
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+          })
+          .toArray(IntBuffer[]::new)).get();
+    } catch (InterruptedException e) {
+      throw new IOException(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof UncheckedIOException) {
+        throw ((UncheckedIOException) e.getCause()).getCause();
+      }
+      throw new RuntimeException(e.getCause());
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  // Merges per-segment (u, v) pairs into a CSR: count, prefix sum, place
+  private static CsrDigraph toCsr(int V, IntBuffer[] edges, int threads) throws IOException {
+    long total = 0;
+    for (IntBuffer buf: edges) {
+      total += buf.limit() / 2;
+    }
+    if (total > Integer.MAX_VALUE - 8) {
+      throw new IOException("Too many edges for a CSR digraph: " + total);
+    }
+
+    AtomicIntegerArray degree = new AtomicIntegerArray(V);
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    try {
+      pool.submit(() -> Arrays.stream(edges).parallel().forEach(buf -> {
+        for (int k = 0; k < buf.limit(); k += 2) {
+          degree.incrementAndGet(buf.get(k));
+        }
+      })).get();
+
+      int[] offsets = new int[V + 1];
+      for (int v = 0; v < V; v++) {
+        offsets[v + 1] = offsets[v] + degree.get(v);
+      }
+      AtomicIntegerArray cursor = degree;
+      for (int v = 0; v < V; v++) {
+        cursor.set(v, offsets[v]);
+      }
+      int[] targets = new int[(int) total];
+      pool.submit(() -> Arrays.stream(edges).parallel().forEach(buf -> {
+        for (int k = 0; k < buf.limit(); k += 2) {
+          targets[cursor.getAndIncrement(buf.get(k))] = buf.get(k + 1);
+        }
+      })).get();
+      return new CsrDigraph(V, offsets, targets);
+    } catch (InterruptedException | ExecutionException e) {
+      throw new IOException(e);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  private static IntBuffer parseEdges(ByteBuffer buf, int V, long len) {
+    // Rough guess of two endpoints per 8 bytes of text
+    int[] pairs = new int[(int) Math.max(16, Math.min(Integer.MAX_VALUE - 8, len / 4))];
+    int n = 0;
+    long[] next = new long[2];
+    int pos = 0;
+    int limit = buf.limit();
+    while (nextInt(buf, pos, limit, next)) {
+      if (n == pairs.length) {
+        pairs = Arrays.copyOf(pairs, (int) Math.min(Integer.MAX_VALUE - 8, 2L * n));
+      }
+      pairs[n++] = validate((int) next[0], V);
+      pos = (int) next[1];
+    }
+    if (n % 2 != 0) {
+      throw new IllegalArgumentException("Edge with a single endpoint");
+    }
+    return IntBuffer.wrap(pairs, 0, n);
+  }
+
+  // Parses the next integer in buf[pos, limit) into out[0], and the position
+  // just past it into out[1]. Returns false when there is none.
+  private static boolean nextInt(ByteBuffer buf, int pos, int limit, long[] out) {
+    while (pos < limit && buf.get(pos) != '-' && (buf.get(pos) < '0' || buf.get(pos) > '9')) {
+      pos++;
+    }
+    if (pos == limit) {
+      return false;
+    }
+    boolean negative = buf.get(pos) == '-';
+    if (negative) {
+      pos++;
+    }
+    long val = 0;
+    byte c;
+    while (pos < limit && (c = buf.get(pos)) >= '0' && c <= '9') {
+      val = val * 10 + (c - '0');
+      if (val > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException("Integer out of range");
+      }
+      pos++;
+    }
+    out[0] = negative ? -val : val;
+    out[1] = pos;
+    return true;
+  }
+
+  // Returns the position just past the first newline at or after pos - 1
+  private static long nextLine(FileChannel ch, long pos) throws IOException {
+    ByteBuffer buf = ByteBuffer.allocate(4096);
+    long at = pos - 1;
+    while (true) {
+      buf.clear();
+      int read = ch.read(buf, at);
+      if (read <= 0) {
+        return ch.size();
+      }
+      for (int i = 0; i < read; i++) {
+        if (buf.get(i) == '\n') {
+          return at + i + 1;
+        }
+      }
+      at += read;
+    }
+  }
+
+  private static int validate(int v, int V) {
+    if (v < 0 || v >= V) {
+      throw new IllegalArgumentException();
+    }
+    return v;
+  }
+
+  private static void drain(FileChannel ch, ByteBuffer buf) throws IOException {
+    buf.flip();
+    while (buf.hasRemaining()) {
+      ch.write(buf);
+    }
+    buf.clear();
+  }
+
+  private static void writeVarint(DataOutputStream out, int val) throws IOException {
+    while ((val & ~0x7f) != 0) {
+      out.writeByte((val & 0x7f) | 0x80);
+      val >>>= 7;
+    }
+    out.writeByte(val);
+  }
+
+  private static int readVarint(DataInputStream in) throws IOException {
+    int val = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      int b = in.readUnsignedByte();
+      val |= (b & 0x7f) << shift;
+      if ((b & 0x80) == 0) {
+        return val;
+      }
+    }
+    throw new IOException("Malformed varint");
+  }
+
+
+  public static void main(String[] args) throws IOException {
+    if (args.length == 0) {
+      System.out.println("Usage: java DigraphLoader <edge-list-file> [threads] [binary-out] [compressed-out]");
+      System.exit(1);
+    }
+
+    int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+    long start = System.nanoTime();
+    CsrDigraph g = loadText(Paths.get(args[0]), threads);
+    System.out.printf("V = %d%nE = %d%n", g.V(), g.E());
+    System.out.printf("text load with %d threads: %.1f ms%n", threads, (System.nanoTime() - start) / 1e6);
+
+    if (args.length > 2) {
+      Path binary = Paths.get(args[2]);
+      writeBinary(g, binary);
+      start = System.nanoTime();
+      loadBinary(binary, threads);
+      System.out.printf("binary load: %.1f ms (%d bytes)%n", (System.nanoTime() - start) / 1e6, Files.size(binary));
+    }
+    if (args.length > 3) {
+      Path compressed = Paths.get(args[3]);
+      writeCompressed(g, compressed);
+      start = System.nanoTime();
+      loadCompressed(compressed);
+      System.out.printf("compressed load: %.1f ms (%d bytes)%n", (System.nanoTime() - start) / 1e6, Files.size(compressed));
+    }
+  }
+
+}
@@ -0,0 +1,338 @@
+package misccode;
+
+import java.util.*;
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Traversals over a CSR digraph: iterative DFS with preorder and postorder
+ * callbacks, BFS (plain top-down and direction-optimizing), Kahn's
+ * topological sort and reachability queries.
+ *
+ * A traversal object is its own workspace: the stack/queue, edge cursors,
+ * distances and visited marks are allocated once per graph and reused, so
+ * repeated queries allocate nothing. Visited marks are stamped with a
+ * per-query counter instead of being cleared. The results of a query (e.g.
+ * visited and distance) stay valid until the next query. Not thread-safe;
+ * use one object per thread.
+ */
+public class DigraphTraversal {
+
+  /**
+   * Callbacks for depth-first search.
+   */
+  public interface Visitor {
+    default void preorder(int v) {}
+    default void postorder(int v) {}
+  }
+
+  // Beamer et al.'s switching thresholds for direction-optimizing BFS
+  private static final int ALPHA = 14;
+  private static final int BETA = 24;
+
+  private final CsrDigraph g;
+  private CsrDigraph rev;
+  private final int V;
+
+  // Workspace
+  private final int[] mark;
+  private int stamp;
+  private final int[] queue;
+  private final int[] edge;
+  private final int[] dist;
+  // Whether the last query was a BFS, i.e. whether dist is valid
+  private boolean bfsQuery;
+
+  // Statistics of the last query
+  private long edgesVisited;
+  private long nanos;
+
+  public DigraphTraversal(Digraph g) {
+    this(new CsrDigraph(g));
+  }
+
+  public DigraphTraversal(CsrDigraph g) {
+    this.g = g;
+    V = g.V();
+    mark = new int[V];
+    queue = new int[V];
+    edge = new int[V];
+    dist = new int[V];
+  }
+
+  /**
+   * Depth-first search from s. Returns the number of vertices reached.
+   */
+  public int dfs(int s, Visitor visitor) {
+    start();
+    int n = dfsFrom(s, visitor);
+    stop();
+    return n;
+  }
+
+  /**
+   * Depth-first search over the whole digraph, starting new trees in
+   * increasing vertex order.
+   */
+  public void dfs(Visitor visitor) {
+    start();
+    for (int s = 0; s < V; s++) {
+      if (mark[s] != stamp) {
+        dfsFrom(s, visitor);
+      }
+    }
+    stop();
+  }
+
+  private int dfsFrom(int s, Visitor visitor) {
+    int[] stack = queue;
+    int n = 1;
+    int top = 0;
+    stack[top++] = s;
+    mark[s] = stamp;
+    edge[s] = g.begin(s);
+    visitor.preorder(s);
+    while (top > 0) {
+      int v = stack[top - 1];
+      if (edge[v] < g.end(v)) {
+        int w = g.target(edge[v]++);
+        edgesVisited++;
+        if (mark[w] != stamp) {
+          mark[w] = stamp;
+          edge[w] = g.begin(w);
+          stack[top++] = w;
+          n++;
+          visitor.preorder(w);
+        }
+      } else {
+        top--;
+        visitor.postorder(v);
+      }
+    }
+    return n;
+  }
+
+  /**
+   * Top-down breadth-first search from s. Returns the number of vertices
+   * reached; vertexAt(i) lists them in BFS order.
+   */
+  public int bfs(int s) {
+    start();
+    bfsQuery = true;
+    int tail = bfsFrom(s, -1);
+    stop();
+    return tail;
+  }
+
+  /**
+   * Returns true if t is reachable from s, stopping as soon as t is found.
+   */
+  public boolean reachable(int s, int t) {
+    start();
+    bfsQuery = true;
+    bfsFrom(s, t);
+    stop();
+    return mark[t] == stamp;
+  }
+
+  private int bfsFrom(int s, int target) {
+    int head = 0;
+    int tail = 0;
+    queue[tail++] = s;
+    mark[s] = stamp;
+    dist[s] = 0;
+    if (s == target) {
+      return tail;
+    }
+    while (head < tail) {
+      int v = queue[head++];
+      for (int k = g.begin(v); k < g.end(v); k++) {
+        int w = g.target(k);
+        edgesVisited++;
+        if (mark[w] != stamp) {
+          mark[w] = stamp;
+          dist[w] = dist[v] + 1;
+          queue[tail++] = w;
+          if (w == target) {
+            return tail;
+          }
+        }
+      }
+    }
+    return tail;
+  }
+
+  /**
+   * Direction-optimizing breadth-first search from s. Small frontiers are
+   * expanded top-down; once the frontier's out-edges outnumber the
+   * unexplored edges by ALPHA, levels are built bottom-up instead: every
+   * unvisited vertex scans its in-edges for a parent in the frontier.
+   * Distances are the same as bfs(s); the order within a level may differ.
+   */
+  public int directionOptimizingBfs(int s) {
+    if (rev == null) {
+      rev = g.reverse();
+    }
+    start();
+    bfsQuery = true;
+    int head = 0;
+    int tail = 0;
+    queue[tail++] = s;
+    mark[s] = stamp;
+    dist[s] = 0;
+    long frontierEdges = g.outdegree(s);
+    long unexploredEdges = g.E() - frontierEdges;
+    boolean bottomUp = false;
+    for (int level = 0; head < tail; level++) {
+      int frontierSize = tail - head;
+      if (!bottomUp && frontierEdges > unexploredEdges / ALPHA) {
+        bottomUp = true;
+      } else if (bottomUp && frontierSize < V / BETA) {
+        bottomUp = false;
+      }
+      int levelStart = tail;
+      frontierEdges = 0;
+      if (bottomUp) {
+        for (int v = 0; v < V; v++) {
+          if (mark[v] == stamp) {
+            continue;
+          }
+          for (int k = rev.begin(v); k < rev.end(v); k++) {
+            int u = rev.target(k);
+            edgesVisited++;
+            if (mark[u] == stamp && dist[u] == level) {
+              mark[v] = stamp;
+              dist[v] = level + 1;
+              queue[tail++] = v;
+              frontierEdges += g.outdegree(v);
+              break;
+            }
+          }
+        }
+      } else {
+        for (int i = head; i < levelStart; i++) {
+          int v = queue[i];
+          for (int k = g.begin(v); k < g.end(v); k++) {
+            int w = g.target(k);
+            edgesVisited++;
+            if (mark[w] != stamp) {
+              mark[w] = stamp;
+              dist[w] = level + 1;
+              queue[tail++] = w;
+              frontierEdges += g.outdegree(w);
+            }
+          }
+        }
+      }
+      head = levelStart;
+      unexploredEdges -= frontierEdges;
+    }
+    stop();
+    return tail;
+  }
+
+  /**
+   * Kahn's topological sort. Fills order[0 .. V) and returns true, or
+   * returns false if the digraph has a cycle (order is then partial).
+   */
+  public boolean topologicalSort(int[] order) {
+    start();
+    int[] indegree = edge;
+    Arrays.fill(indegree, 0);
+    for (int k = 0; k < g.E(); k++) {
+      indegree[g.target(k)]++;
+    }
+    int head = 0;
+    int tail = 0;
+    for (int v = 0; v < V; v++) {
+      if (indegree[v] == 0) {
+        order[tail++] = v;
+      }
+    }
+    while (head < tail) {
+      int v = order[head++];
+      for (int k = g.begin(v); k < g.end(v); k++) {
+        int w = g.target(k);
+        edgesVisited++;
+        if (--indegree[w] == 0) {
+          order[tail++] = w;
+        }
+      }
+    }
+    stop();
+    return tail == V;
+  }
+
+  /**
+   * Returns true if v was reached by the last query.
+   */
+  public boolean visited(int v) {
+    return mark[v] == stamp;
+  }
+
+  /**
+   * Returns the BFS distance of v from the source of the last query, or -1
+   * if v was not reached or the last query was not a BFS.
+   */
+  public int distance(int v) {
+    return bfsQuery && mark[v] == stamp ? dist[v] : -1;
+  }
+
+  /**
+   * Returns the i-th vertex reached by the last BFS.
+   */
+  public int vertexAt(int i) {
+    return queue[i];
+  }
+
+  /**
+   * Returns the number of edges scanned by the last query.
+   */
+  public long edgesVisited() {
+    return edgesVisited;
+  }
+
+  /**
+   * Returns the edge throughput of the last query.
+   */
+  public double edgesPerSecond() {
+    return nanos == 0 ? 0.0 : edgesVisited * 1e9 / nanos;
+  }
+
+  private void start() {
+    if (stamp == Integer.MAX_VALUE) {
+      Arrays.fill(mark, 0);
+      stamp = 0;
+    }
+    stamp++;
+    bfsQuery = false;
+    edgesVisited = 0;
+    nanos = System.nanoTime();
+  }
+
+  private void stop() {
+    nanos = System.nanoTime() - nanos;
+  }
+
+
+  public static void main(String[] args) throws IOException {
+    if (args.length == 0) {
+      System.out.println("Usage: java DigraphTraversal <edge-list-file> [source]");
+      System.exit(1);
+    }
+
+    CsrDigraph g = DigraphLoader.loadText(Paths.get(args[0]));
+    int s = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+    DigraphTraversal t = new DigraphTraversal(g);
+
+    int reached = t.bfs(s);
+    System.out.printf("bfs: %d vertices, %.3g edges/s%n", reached, t.edgesPerSecond());
+    reached = t.directionOptimizingBfs(s);
+    System.out.printf("direction-optimizing bfs: %d vertices, %.3g edges/s%n", reached, t.edgesPerSecond());
+    reached = t.dfs(s, new Visitor() {});
+    System.out.printf("dfs: %d vertices, %.3g edges/s%n", reached, t.edgesPerSecond());
+    boolean acyclic = t.topologicalSort(new int[g.V()]);
+    System.out.printf("topological sort: %s, %.3g edges/s%n", acyclic ? "acyclic" : "has a cycle", t.edgesPerSecond());
+  }
+
+}
@@ -0,0 +1,423 @@
+package misccode;
+
+import java.util.*;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Maintains the strongly connected components of a digraph under edge
+ * insertions.
+ *
+ * Components are kept in a union-find structure (union by size, path
+ * halving), so sameComponent and componentOf run in O(alpha(V)). The
+ * condensation is kept in topological order: ord[r] is the position of the
+ * component whose representative is r. An edge that agrees with that order
+ * costs nothing more than appending it. An edge u -> v that goes against it
+ * triggers the Pearce-Kelly search limited to the components ordered between
+ * v and u: a forward search from v and a backward search from u. When the
+ * forward search reaches u the edge closes a cycle, and the components found
+ * by both searches collapse into one. The affected components are then
+ * reordered within the positions they already occupied.
+ *
+ * The searches walk a condensed adjacency: each component keeps one list
+ * of its outgoing and one of its incoming edges, merged when components
+ * merge. Whenever a search scans a list it rewrites the entries as
+ * representatives and drops edges that became internal to the component
+ * or duplicate another entry, so a large component costs its number of
+ * distinct neighbouring components, not its number of edges.
+ */
+public class DynamicConnectedComponents {
+
+  private final Digraph g;
+  private final int V;
+  private int E;
+
+  // out[v][0 .. outSize[v]) holds the edges leaving v
+  private final int[][] out;
+  private final int[] outSize;
+
+  // Condensed adjacency of the component represented by r: the components
+  // (or vertices of them) at the other end of its outgoing and incoming
+  // edges, in compOut[r][0 .. compOutSize[r]) and compIn[r][0 .. compInSize[r])
+  private final int[][] compOut;
+  private final int[] compOutSize;
+  private final int[][] compIn;
+  private final int[] compInSize;
+
+  // Union-find over vertices
+  private final int[] parent;
+  private final int[] size;
+  private int count;
+
+  // ord[r] is the topological position of the component represented by r
+  private final int[] ord;
+
+  // Scratch space for the searches: components marked with the current stamp
+  private final int[] forwardMark;
+  private final int[] backwardMark;
+  private int stamp;
+  private int[] stack;
+
+  // Marks of the components already kept while compacting one list
+  private final int[] seen;
+  private int seenStamp;
+
+  // Adjacency entries scanned by the searches, the cost that addEdges
+  // weighs against a rebuild
+  private long work;
+
+  /**
+   * Starts maintaining the components of g. Further edges must be added
+   * through this object so that the components stay up to date.
+   */
+  public DynamicConnectedComponents(Digraph g) {
+    this.g = g;
+    V = g.V();
+    out = new int[V][];
+    outSize = new int[V];
+    compOut = new int[V][];
+    compOutSize = new int[V];
+    compIn = new int[V][];
+    compInSize = new int[V];
+    for (int v = 0; v < V; v++) {
+      out[v] = new int[Math.max(2, g.outdegree(v))];
+    }
+    for (int u = 0; u < V; u++) {
+      for (int v: g.adj(u)) {
+        append(u, v);
+      }
+    }
+    parent = new int[V];
+    size = new int[V];
+    ord = new int[V];
+    forwardMark = new int[V];
+    backwardMark = new int[V];
+    seen = new int[V];
+    stack = new int[16];
+    rebuild();
+  }
+
+  /**
+   * Adds the edge u -> v to the digraph and updates the components.
+   */
+  public void addEdge(int u, int v) {
+    g.addEdge(u, v);
+    append(u, v);
+    int ru = find(u);
+    int rv = find(v);
+    if (ru != rv) {
+      compOutSize[ru] = add(compOut, compOutSize[ru], ru, rv);
+      compInSize[rv] = add(compIn, compInSize[rv], rv, ru);
+      insert(ru, rv);
+    }
+  }
+
+  /**
+   * Adds the edges from[i] -> to[i]. The edges are inserted one at a time
+   * until the searches have scanned as many adjacency entries as a rebuild
+   * would (V + E); the rest of the batch is then appended as a whole and
+   * the components are recomputed once. A batch thus costs at most about
+   * twice the cheaper of the two strategies.
+   */
+  public void addEdges(int[] from, int[] to) {
+    if (from.length != to.length) {
+      throw new IllegalArgumentException();
+    }
+    long budget = work + V + E + from.length;
+    int i = 0;
+    while (i < from.length && work < budget) {
+      addEdge(from[i], to[i]);
+      i++;
+    }
+    if (i == from.length) {
+      return;
+    }
+    for (; i < from.length; i++) {
+      g.addEdge(from[i], to[i]);
+      append(from[i], to[i]);
+    }
+    rebuild();
+  }
+
+  /**
+   * Returns true if u and v are in the same strongly connected component.
+   */
+  public boolean sameComponent(int u, int v) {
+    return find(u) == find(v);
+  }
+
+  /**
+   * Returns the representative of the component of v. Representatives
+   * change when components merge.
+   */
+  public int componentOf(int v) {
+    return find(v);
+  }
+
+  /**
+   * Returns the number of strongly connected components.
+   */
+  public int count() {
+    return count;
+  }
+
+  /**
+   * Returns the topological position of the component of v in the
+   * condensation: an edge between different components always goes from a
+   * lower position to a higher one.
+   */
+  public int order(int v) {
+    return ord[find(v)];
+  }
+
+  private void append(int u, int v) {
+    if (outSize[u] == out[u].length) {
+      out[u] = Arrays.copyOf(out[u], 2 * outSize[u]);
+    }
+    out[u][outSize[u]++] = v;
+    E++;
+  }
+
+  // Appends x to lists[r], whose current size is n, and returns the new size
+  private static int add(int[][] lists, int n, int r, int x) {
+    if (lists[r] == null) {
+      lists[r] = new int[2];
+    } else if (n == lists[r].length) {
+      lists[r] = Arrays.copyOf(lists[r], 2 * n);
+    }
+    lists[r][n] = x;
+    return n + 1;
+  }
+
+  private void rebuild() {
+    int[] offsets = new int[V + 1];
+    for (int v = 0; v < V; v++) {
+      offsets[v + 1] = offsets[v] + outSize[v];
+    }
+    int[] targets = new int[E];
+    for (int v = 0; v < V; v++) {
+      System.arraycopy(out[v], 0, targets, offsets[v], outSize[v]);
+    }
+    // Kosaraju lists the components sinks first
+    List<List<Integer>> scc = ConnectedComponents.computeComponents(new CsrDigraph(V, offsets, targets));
+    count = scc.size();
+    for (int i = 0; i < count; i++) {
+      List<Integer> component = scc.get(i);
+      int r = component.get(0);
+      for (int k = 0; k < component.size(); k++) {
+        int v = component.get(k);
+        parent[v] = r;
+        size[v] = 1;
+      }
+      size[r] = component.size();
+      ord[r] = count - 1 - i;
+    }
+    Arrays.fill(compOut, null);
+    Arrays.fill(compOutSize, 0);
+    Arrays.fill(compIn, null);
+    Arrays.fill(compInSize, 0);
+    for (int u = 0; u < V; u++) {
+      int ru = find(u);
+      for (int k = 0; k < outSize[u]; k++) {
+        int rv = find(out[u][k]);
+        if (ru != rv) {
+          compOutSize[ru] = add(compOut, compOutSize[ru], ru, rv);
+          compInSize[rv] = add(compIn, compInSize[rv], rv, ru);
+        }
+      }
+    }
+  }
+
+  // Restores the order after an edge from component ru to component rv
+  private void insert(int ru, int rv) {
+    if (ord[ru] < ord[rv]) {
+      return;
+    }
+    int lb = ord[rv];
+    int ub = ord[ru];
+
+    stamp++;
+    int[] forward = search(rv, true, lb, ub);
+    boolean cycle = forwardMark[ru] == stamp;
+    int[] backward = search(ru, false, lb, ub);
+
+    // Positions currently held by the affected components, in increasing
+    // order. Components found by both searches are counted once.
+    int[] slots = new int[forward.length + backward.length];
+    int n = 0;
+    for (int x: forward) {
+      slots[n++] = ord[x];
+    }
+    for (int x: backward) {
+      if (forwardMark[x] != stamp) {
+        slots[n++] = ord[x];
+      }
+    }
+    Arrays.sort(slots, 0, n);
+    sortByOrder(forward);
+    sortByOrder(backward);
+
+    // The backward set moves to the lowest positions and the forward set to
+    // the highest, so neither moves past an unaffected component. A cycle
+    // collapses into one component placed between them; the positions it
+    // frees stay unused.
+    int k = 0;
+    int r = ru;
+    for (int x: backward) {
+      if (forwardMark[x] != stamp) {
+        ord[x] = slots[k++];
+      } else {
+        r = union(r, x);
+      }
+    }
+    if (cycle) {
+      ord[r] = slots[k];
+    }
+    k = n - 1;
+    for (int i = forward.length - 1; i >= 0; i--) {
+      int x = forward[i];
+      if (!cycle || backwardMark[x] != stamp) {
+        ord[x] = slots[k--];
+      }
+    }
+  }
+
+  // Collects the components reachable from representative s (forward) or
+  // reaching it (backward) whose position lies within [lb, ub]
+  private int[] search(int s, boolean forward, int lb, int ub) {
+    int[] mark = forward ? forwardMark : backwardMark;
+    int[][] adj = forward ? compOut : compIn;
+    int[] adjSize = forward ? compOutSize : compInSize;
+    int[] found = new int[4];
+    int n = 0;
+    int top = 0;
+    mark[s] = stamp;
+    push(top++, s);
+    while (top > 0) {
+      int x = stack[--top];
+      if (n == found.length) {
+        found = Arrays.copyOf(found, 2 * n);
+      }
+      found[n++] = x;
+      // Scan the list of x, compacting it to distinct other components
+      int[] list = adj[x];
+      int kept = 0;
+      seenStamp++;
+      for (int k = 0; k < adjSize[x]; k++) {
+        int y = find(list[k]);
+        if (y == x || seen[y] == seenStamp) {
+          continue;
+        }
+        seen[y] = seenStamp;
+        list[kept++] = y;
+        if (mark[y] != stamp && ord[y] >= lb && ord[y] <= ub) {
+          mark[y] = stamp;
+          push(top++, y);
+        }
+      }
+      work += adjSize[x] + 1;
+      adjSize[x] = kept;
+    }
+    return Arrays.copyOf(found, n);
+  }
+
+  private void push(int top, int x) {
+    if (top == stack.length) {
+      stack = Arrays.copyOf(stack, 2 * top);
+    }
+    stack[top] = x;
+  }
+
+  private void sortByOrder(int[] reps) {
+    long[] keys = new long[reps.length];
+    for (int i = 0; i < reps.length; i++) {
+      keys[i] = (long) ord[reps[i]] << 32 | reps[i];
+    }
+    Arrays.sort(keys);
+    for (int i = 0; i < reps.length; i++) {
+      reps[i] = (int) keys[i];
+    }
+  }
+
+  private int find(int v) {
+    while (parent[v] != v) {
+      parent[v] = parent[parent[v]];
+      v = parent[v];
+    }
+    return v;
+  }
+
+  private int union(int a, int b) {
+    a = find(a);
+    b = find(b);
+    if (a == b) {
+      return a;
+    }
+    if (size[a] < size[b]) {
+      int tmp = a;
+      a = b;
+      b = tmp;
+    }
+    parent[b] = a;
+    size[a] += size[b];
+    compOutSize[a] = merge(compOut, compOutSize, a, b);
+    compInSize[a] = merge(compIn, compInSize, a, b);
+    count--;
+    return a;
+  }
+
+  // Moves the shorter of lists[a] and lists[b] onto the end of the longer,
+  // leaving the result in lists[a], and returns its size
+  private static int merge(int[][] lists, int[] sizes, int a, int b) {
+    if (sizes[b] > sizes[a]) {
+      int[] list = lists[a];
+      lists[a] = lists[b];
+      lists[b] = list;
+      int n = sizes[a];
+      sizes[a] = sizes[b];
+      sizes[b] = n;
+    }
+    int n = sizes[a];
+    for (int k = 0; k < sizes[b]; k++) {
+      n = add(lists, n, a, lists[b][k]);
+    }
+    lists[b] = null;
+    sizes[b] = 0;
+    return n;
+  }
+
+
+  public static void main(String[] args) throws IOException {
+    if (args.length == 0) {
+      System.out.println("Usage: java DynamicConnectedComponents <digraph-file>");
+      System.exit(1);
+    }
+
+    // Start from the empty digraph and insert the edges of the file one by one
+    Scanner s = new Scanner(new File(args[0]));
+    int V = s.nextInt();
+    DynamicConnectedComponents dcc = new DynamicConnectedComponents(new Digraph(V));
+    long start = System.nanoTime();
+    while (s.hasNextInt()) {
+      dcc.addEdge(s.nextInt(), s.nextInt());
+    }
+    s.close();
+    double millis = (System.nanoTime() - start) / 1e6;
+    System.out.printf("%d components after %d insertions (%.1f ms)%n", dcc.count(), dcc.g.E(), millis);
+
+    int[] expected = ConnectedComponents.labels(ConnectedComponents.computeComponents(dcc.g), V);
+    for (int v = 0; v < V; v++) {
+      if (!dcc.sameComponent(v, expected[v])) {
+        throw new RuntimeException("Vertex " + v + " is not with " + expected[v]);
+      }
+    }
+    for (int u = 0; u < V; u++) {
+      for (int v: dcc.g.adj(u)) {
+        if (!dcc.sameComponent(u, v) && dcc.order(u) >= dcc.order(v)) {
+          throw new RuntimeException("Edge " + u + " -> " + v + " violates the topological order");
+        }
+      }
+    }
+  }
+
+}
@@ -0,0 +1,140 @@
+package misccode;
+
+import java.util.*;
+
+/**
+ * O(n^3) Hungarian method for the linear assignment problem, built from
+ * shortest augmenting paths over flat primitive arrays.
+ *
+ * Rows are added one at a time. For each new row a Dijkstra-like search over
+ * the reduced costs c[i][j] - u[i] - v[j] grows an alternating tree until it
+ * reaches a free column, updating the dual potentials u and v as it goes,
+ * and the assignment is then flipped along the path. Forbidden entries
+ * (Integer.MAX_VALUE / Double.MAX_VALUE, as on the diagonal of a distance
+ * matrix) are treated as infinite costs.
+ */
+public class HungarianAssignment {
+
+  /**
+   * Source of the cost rows, filled into a caller-provided buffer so that
+   * the engine never needs the whole matrix in its own layout.
+   */
+  interface Rows {
+    void fill(int i, double[] row);
+  }
+
+  /**
+   * Solves the assignment problem for cost matrix d. Fills succ[i] with the
+   * column assigned to row i and returns the total cost.
+   */
+  public static double solve(double[][] d, int[] succ) {
+    final int n = d.length;
+    solve(n, (i, row) -> {
+      for (int j = 0; j < n; j++) {
+        row[j] = d[i][j] == Double.MAX_VALUE ? Double.POSITIVE_INFINITY : d[i][j];
+      }
+    }, succ);
+    double cost = 0.0;
+    for (int i = 0; i < n; i++) {
+      cost += d[i][succ[i]];
+    }
+    return cost;
+  }
+
+  /**
+   * Integer version of solve. The cost is summed exactly.
+   */
+  public static long solve(int[][] d, int[] succ) {
+    final int n = d.length;
+    solve(n, (i, row) -> {
+      for (int j = 0; j < n; j++) {
+        row[j] = d[i][j] == Integer.MAX_VALUE ? Double.POSITIVE_INFINITY : d[i][j];
+      }
+    }, succ);
+    long cost = 0L;
+    for (int i = 0; i < n; i++) {
+      cost += d[i][succ[i]];
+    }
+    return cost;
+  }
+
+  /**
+   * Version of solve for compact symmetric storage; rows are unpacked one
+   * at a time, so no n x n matrix is ever built.
+   */
+  public static double solve(SymmetricDistances d, int[] succ) {
+    final int n = d.n();
+    solve(n, (i, row) -> {
+      d.row(i, row);
+      row[i] = Double.POSITIVE_INFINITY;
+    }, succ);
+    double cost = 0.0;
+    for (int i = 0; i < n; i++) {
+      cost += d.get(i, succ[i]);
+    }
+    return cost;
+  }
+
+  static void solve(int n, Rows rows, int[] succ) {
+    // Index 0 is a virtual column/row holding the row being inserted
+    double[] u = new double[n + 1];
+    double[] v = new double[n + 1];
+    int[] p = new int[n + 1];       // p[j]: row assigned to column j
+    int[] way = new int[n + 1];     // previous column on the augmenting path
+    double[] minv = new double[n + 1];
+    boolean[] used = new boolean[n + 1];
+    double[] row = new double[n];
+
+    for (int i = 1; i <= n; i++) {
+      p[0] = i;
+      int j0 = 0;
+      Arrays.fill(minv, Double.POSITIVE_INFINITY);
+      Arrays.fill(used, false);
+      do {
+        used[j0] = true;
+        int i0 = p[j0];
+        rows.fill(i0 - 1, row);
+        double delta = Double.POSITIVE_INFINITY;
+        int j1 = -1;
+        double ui0 = u[i0];
+        for (int j = 1; j <= n; j++) {
+          if (!used[j]) {
+            double cur = row[j - 1] - ui0 - v[j];
+            if (cur < minv[j]) {
+              minv[j] = cur;
+              way[j] = j0;
+            }
+            if (minv[j] < delta) {
+              delta = minv[j];
+              j1 = j;
+            }
+          }
+        }
+        if (j1 == -1) {
+          throw new IllegalArgumentException("No feasible assignment");
+        }
+        for (int j = 0; j <= n; j++) {
+          if (used[j]) {
+            u[p[j]] += delta;
+            v[j] -= delta;
+          } else {
+            minv[j] -= delta;
+          }
+        }
+        j0 = j1;
+      } while (p[j0] != 0);
+
+      // Flip the assignment along the augmenting path
+      do {
+        int j1 = way[j0];
+        p[j0] = p[j1];
+        j0 = j1;
+      } while (j0 != 0);
+    }
+
+    for (int j = 1; j <= n; j++) {
+      succ[p[j] - 1] = j - 1;
+    }
+  }
+
+}
@@ -1,3 +1,5 @@
+package misccode;
+
 import java.util.*;
 import java.io.*;
 
@@ -5,6 +7,14 @@ import java.io.*;
 public class KnapSack {
 
   public static long solve(int[] v, int[] w, int W) {
+    return solveRow(v, w, W)[W];
+  }
+
+  /**
+   * Returns the last row of the DP table: entry x is the optimal value for
+   * capacity x, for every x from 0 to W.
+   */
+  public static long[] solveRow(int[] v, int[] w, int W) {
     final int N = v.length;
     long[][] A = new long[N][W+1];
     for (int x = 0; x <= W; x++) {
@@ -22,7 +32,7 @@ public class KnapSack {
         }
       }
     }
-    return A[N-1][W];
+    return A[N-1];
   }
 
   public static void main(String[] args) throws IOException {
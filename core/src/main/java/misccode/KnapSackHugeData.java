@@ -1,9 +1,17 @@
+package misccode;
+
 import java.util.*;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 import java.io.*;
 
 
 public class KnapSackHugeData {
 	
+	private static final LongAdder CACHE_HITS = SolverMetrics.counter("knapsack.cache-hits");
+	private static final LongAdder CACHE_MISSES = SolverMetrics.counter("knapsack.cache-misses");
+	private static final LongAccumulator PEAK_STATES = SolverMetrics.max("knapsack.peak-states");
+	
 	private static class Subproblem {
 		private int prefixLen;
 		private int remainingSize;
@@ -30,8 +38,15 @@ public class KnapSackHugeData {
 	}
 
 	public static long solve(int[] v, int[] w, int W) {
+		SolverMetrics.SolveEvent event = SolverMetrics.beginSolve("KnapSackHugeData", v.length - 1);
 		Map<Subproblem, Long> cache = new HashMap<>();
-		return solve(v, w, v.length - 1, W, cache);
+		long sol = solve(v, w, v.length - 1, W, cache);
+		if (SolverMetrics.ENABLED) {
+			// Entries are never evicted, so the final size is the peak
+			PEAK_STATES.accumulate(cache.size());
+		}
+		SolverMetrics.endSolve(event);
+		return sol;
 	}
 	
 	private static Long solve(int[] v, int[] w, int prefixLen, int remainingSize, Map<Subproblem, Long> cache) {
@@ -43,8 +58,14 @@ public class KnapSackHugeData {
 		Subproblem curr = new Subproblem(prefixLen, remainingSize);
 		Long sol = cache.get(curr);
 		if (sol != null) {
+			if (SolverMetrics.ENABLED) {
+				CACHE_HITS.increment();
+			}
 			return sol;
 		}
+		if (SolverMetrics.ENABLED) {
+			CACHE_MISSES.increment();
+		}
 		
 		sol = solve(v, w, prefixLen - 1, remainingSize, cache);
 		if (remainingSize - w[prefixLen] >= 0) {
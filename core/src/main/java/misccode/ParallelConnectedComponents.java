@@ -0,0 +1,307 @@
+package misccode;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+import java.nio.file.Paths;
+import java.io.IOException;
+
+/**
+ * Multicore strongly connected components over a CSR digraph.
+ *
+ * The decomposition runs in three stages, all of which write into one
+ * shared atomic label array (-1 while a vertex is still unassigned):
+ *   1. trim: peel off vertices with no live in- or out-neighbour, each of
+ *      which is an SCC of size one;
+ *   2. forward-backward: the SCC of a high-degree pivot is the
+ *      intersection of its forward and backward reachable sets, which
+ *      usually removes the giant component in one step;
+ *   3. coloring: propagate the maximum vertex id forward until stable, then
+ *      each vertex whose color is its own id collects its SCC with a
+ *      backward search inside its color class. Repeat until all assigned.
+ * Once few live vertices remain, or coloring stops paying off (as on a long
+ * chain of small SCCs), sequential Kosaraju finishes the subgraph induced
+ * by the live vertices.
+ *
+ * Every vertex ends up labeled with the largest vertex of its SCC, the same
+ * canonical form as ConnectedComponents.labels, so results can be compared
+ * with Arrays.equals.
+ */
+public class ParallelConnectedComponents {
+
+  private static final int LIVE = -1;
+
+  // Below this many live vertices the rest is finished by sequential Kosaraju
+  private static final int SEQUENTIAL_CUTOFF = 1 << 12;
+
+  // Colors travel one edge per propagation step, and on a long chain each
+  // vertex is raised once per color above it, so propagation can cost
+  // quadratic work. A coloring round that rescans more than
+  // MAX_COLOR_WORK times the live vertices is abandoned, and so is coloring
+  // once a round collects less than 1/COLLECT_RATIO of the live vertices
+  // (as on a chain of small SCCs, one per round, which trim cannot peel);
+  // sequential Kosaraju then finishes the live subgraph.
+  private static final int MAX_COLOR_WORK = 8;
+  private static final int COLLECT_RATIO = 16;
+
+  // Frontiers smaller than this are expanded without a parallel stream
+  private static final int PARALLEL_FRONTIER = 1024;
+
+  private final CsrDigraph g;
+  private final CsrDigraph rev;
+  private final int V;
+
+  // label[v] is the largest vertex of the SCC of v, or LIVE
+  private final AtomicIntegerArray label;
+
+  // Scratch marks for the forward-backward and coloring stages
+  private final AtomicIntegerArray mark;
+
+  private ParallelConnectedComponents(CsrDigraph g) {
+    this.g = g;
+    this.rev = g.reverse();
+    this.V = g.V();
+    this.label = new AtomicIntegerArray(V);
+    this.mark = new AtomicIntegerArray(V);
+    for (int v = 0; v < V; v++) {
+      label.set(v, LIVE);
+    }
+  }
+
+  /**
+   * Computes the SCC labels of g using the given number of worker threads.
+   */
+  public static int[] computeLabels(CsrDigraph g, int threads) {
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    try {
+      // Parallel streams started from inside the pool run on its workers
+      return pool.submit(() -> new ParallelConnectedComponents(g).run()).get();
+    } catch (InterruptedException | ExecutionException e) {
+      throw new RuntimeException(e);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  private int[] run() {
+    trim();
+    forwardBackward();
+    int[] live = liveVertices();
+    while (live.length > 0) {
+      if (live.length < SEQUENTIAL_CUTOFF || !color(live)) {
+        sequential(live);
+        break;
+      }
+      int[] next = liveVertices();
+      if (live.length - next.length < live.length / COLLECT_RATIO) {
+        sequential(next);
+        break;
+      }
+      live = next;
+    }
+    int[] result = new int[V];
+    for (int v = 0; v < V; v++) {
+      result[v] = label.get(v);
+    }
+    return result;
+  }
+
+  private void trim() {
+    int trimmed;
+    do {
+      trimmed = IntStream.range(0, V).parallel()
+          .map(v -> label.get(v) == LIVE && (!hasLiveNeighbour(g, v) || !hasLiveNeighbour(rev, v)) ? trimVertex(v) : 0)
+          .sum();
+      // Stop once a pass peels off less than 1% of the graph; coloring
+      // handles the rest more cheaply than another full sweep
+    } while (trimmed > 0 && trimmed >= V / 100);
+  }
+
+  private int trimVertex(int v) {
+    label.set(v, v);
+    return 1;
+  }
+
+  private boolean hasLiveNeighbour(CsrDigraph h, int v) {
+    for (int k = h.begin(v); k < h.end(v); k++) {
+      int w = h.target(k);
+      if (w != v && label.get(w) == LIVE) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void forwardBackward() {
+    int pivot = IntStream.range(0, V).parallel()
+        .filter(v -> label.get(v) == LIVE)
+        .boxed()
+        .max(Comparator.comparingLong(v -> (long) g.outdegree(v) * rev.outdegree(v)))
+        .orElse(-1);
+    if (pivot == -1) {
+      return;
+    }
+
+    // Forward reachable set gets mark 1, its backward reachable part mark 2
+    mark.set(pivot, 1);
+    search(g, new int[] {pivot}, 0, 1);
+    mark.set(pivot, 2);
+    search(rev, new int[] {pivot}, 1, 2);
+
+    int[] scc = IntStream.range(0, V).parallel().filter(v -> mark.get(v) == 2).toArray();
+    int max = IntStream.of(scc).max().getAsInt();
+    IntStream.of(scc).parallel().forEach(v -> label.set(v, max));
+    IntStream.range(0, V).parallel().forEach(v -> mark.set(v, 0));
+  }
+
+  // Level-synchronous BFS over live vertices, moving marks from 'from' to 'to'
+  private void search(CsrDigraph h, int[] frontier, int from, int to) {
+    while (frontier.length > 0) {
+      frontier = stream(frontier)
+          .flatMap(v -> IntStream.range(h.begin(v), h.end(v))
+              .map(h::target)
+              .filter(w -> label.get(w) == LIVE && mark.compareAndSet(w, from, to)))
+          .toArray();
+    }
+  }
+
+  private static IntStream stream(int[] frontier) {
+    IntStream s = IntStream.of(frontier);
+    return frontier.length < PARALLEL_FRONTIER ? s : s.parallel();
+  }
+
+  // Returns false, collecting nothing, if propagation does not settle
+  // within MAX_COLOR_WORK rescans of the live vertices
+  private boolean color(int[] live) {
+    // mark holds the color of a live vertex; it only ever increases
+    IntStream.of(live).parallel().forEach(v -> mark.set(v, v));
+    AtomicIntegerArray queued = new AtomicIntegerArray(V);
+    int[] active = live;
+    long work = 0;
+    while (active.length > 0) {
+      work += active.length;
+      if (work > (long) MAX_COLOR_WORK * live.length) {
+        return false;
+      }
+      int[] next = stream(active)
+          .flatMap(v -> {
+            int c = mark.get(v);
+            return IntStream.range(g.begin(v), g.end(v))
+                .map(g::target)
+                .filter(w -> label.get(w) == LIVE && raise(w, c) && queued.compareAndSet(w, 0, 1));
+          })
+          .toArray();
+      IntStream.of(next).parallel().forEach(w -> queued.set(w, 0));
+      active = next;
+    }
+
+    // A vertex whose color is its own id is the largest vertex of its SCC,
+    // which is everything of the same color that reaches it
+    int[] roots = IntStream.of(live).parallel().filter(v -> mark.get(v) == v).toArray();
+    IntStream.of(roots).parallel().forEach(this::collect);
+    return true;
+  }
+
+  private boolean raise(int w, int c) {
+    int cur;
+    while ((cur = mark.get(w)) < c) {
+      if (mark.compareAndSet(w, cur, c)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void collect(int root) {
+    int[] stack = new int[16];
+    int top = 0;
+    stack[top++] = root;
+    label.set(root, root);
+    while (top > 0) {
+      int v = stack[--top];
+      for (int k = rev.begin(v); k < rev.end(v); k++) {
+        int w = rev.target(k);
+        if (mark.get(w) == root && label.get(w) == LIVE) {
+          label.set(w, root);
+          if (top == stack.length) {
+            stack = Arrays.copyOf(stack, 2 * top);
+          }
+          stack[top++] = w;
+        }
+      }
+    }
+  }
+
+  // Runs Kosaraju on the subgraph induced by the live vertices
+  private void sequential(int[] live) {
+    int n = live.length;
+    int[] local = new int[V];
+    Arrays.fill(local, -1);
+    for (int i = 0; i < n; i++) {
+      local[live[i]] = i;
+    }
+    int[] offsets = new int[n + 1];
+    for (int i = 0; i < n; i++) {
+      int edges = 0;
+      for (int k = g.begin(live[i]); k < g.end(live[i]); k++) {
+        if (local[g.target(k)] != -1) {
+          edges++;
+        }
+      }
+      offsets[i + 1] = offsets[i] + edges;
+    }
+    int[] targets = new int[offsets[n]];
+    for (int i = 0, j = 0; i < n; i++) {
+      for (int k = g.begin(live[i]); k < g.end(live[i]); k++) {
+        if (local[g.target(k)] != -1) {
+          targets[j++] = local[g.target(k)];
+        }
+      }
+    }
+    for (List<Integer> scc: ConnectedComponents.computeComponents(new CsrDigraph(n, offsets, targets))) {
+      int max = -1;
+      for (int i: scc) {
+        max = Math.max(max, live[i]);
+      }
+      for (int i: scc) {
+        label.set(live[i], max);
+      }
+    }
+  }
+
+  private int[] liveVertices() {
+    return IntStream.range(0, V).parallel().filter(v -> label.get(v) == LIVE).toArray();
+  }
+
+
+  public static void main(String[] args) throws IOException {
+    if (args.length == 0) {
+      System.out.println("Usage: java ParallelConnectedComponents <digraph-file> [max-threads]");
+      System.exit(1);
+    }
+
+    CsrDigraph g = DigraphLoader.loadText(Paths.get(args[0]));
+    int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+    long start = System.nanoTime();
+    int[] expected = ConnectedComponents.labels(ConnectedComponents.computeComponents(g), g.V());
+    double seqMillis = (System.nanoTime() - start) / 1e6;
+    System.out.printf("V = %d, E = %d%n", g.V(), g.E());
+    System.out.printf("sequential: %.1f ms%n", seqMillis);
+
+    for (int threads = 1; ; threads = Math.min(2 * threads, maxThreads)) {
+      start = System.nanoTime();
+      int[] labels = computeLabels(g, threads);
+      double millis = (System.nanoTime() - start) / 1e6;
+      if (!Arrays.equals(expected, labels)) {
+        throw new RuntimeException("Parallel SCC labels differ from sequential with " + threads + " threads");
+      }
+      System.out.printf("%2d threads: %.1f ms (%.2fx vs sequential)%n", threads, millis, seqMillis / millis);
+      if (threads == maxThreads) {
+        break;
+      }
+    }
+  }
+
+}
@@ -0,0 +1,525 @@
+package misccode;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.io.*;
+
+/**
+ * Multicore version of the memoized top-down knapsack of KnapSackHugeData.
+ *
+ * The subproblem (prefixLen, remainingSize) is reached at depth
+ * N - prefixLen, so the recursion splits into two bands. Above the depth
+ * cutoff every subproblem is a ForkJoin task that forks its "skip" and
+ * "take" subproblems. Below it, each task finishes its subtree with the
+ * sequential recursion, run on an explicit stack so that deep instances
+ * cannot overflow the worker's call stack.
+ *
+ * Both bands share one memo table. It is an open-addressing map from
+ * packed (prefixLen, remainingSize) longs to long values, split into
+ * stripes that each have their own lock. A task subproblem is claimed in
+ * the table before it is forked. A second task that reaches the same
+ * subproblem finds the entry in progress and waits for the owning task
+ * instead of solving it again. Waiting is by continuation, not by join:
+ * since subproblems are shared between tasks, blocking joins could cycle
+ * through the workers' stacks and deadlock. No sequential subproblem is
+ * ever in progress, so the sequential band never waits; two threads may
+ * occasionally solve the same deep subproblem twice, which only costs
+ * time. The recurrence is the same as the sequential one, so the result is
+ * exactly the same. A task that fails passes its exception on to every
+ * task waiting for it, and so on up to the root, which solve rethrows.
+ */
+public class ParallelKnapSack {
+
+  public static final int DEFAULT_CUTOFF = 16;
+
+  private static final LongAdder IN_PROGRESS_WAITS = SolverMetrics.counter("parallel-knapsack.in-progress-waits");
+  private static final LongAdder TASKS = SolverMetrics.counter("parallel-knapsack.tasks");
+
+  private final int[] v;
+  private final int[] w;
+  private final int N;
+  private final int cutoff;
+  private final StateTable table = new StateTable(256);
+
+  // Per-worker stack for the sequential band, sized for the full depth
+  private final ThreadLocal<Frames> frames;
+
+  // Per-worker queue of waiters to notify, see release
+  private final ThreadLocal<Notifications> notifications = ThreadLocal.withInitial(Notifications::new);
+
+  private ParallelKnapSack(int[] v, int[] w, int cutoff) {
+    this.v = v;
+    this.w = w;
+    this.N = v.length - 1;
+    this.cutoff = cutoff;
+    this.frames = ThreadLocal.withInitial(() -> new Frames(N + 1));
+  }
+
+  public static long solve(int[] v, int[] w, int W, int threads) {
+    return solve(v, w, W, threads, DEFAULT_CUTOFF);
+  }
+
+  /**
+   * Solves the instance with the given number of worker threads, forking
+   * subproblems down to the given depth. Items are v[1 .. N] and w[1 .. N]
+   * as in KnapSackHugeData.
+   */
+  public static long solve(int[] v, int[] w, int W, int threads, int cutoff) {
+    SolverMetrics.SolveEvent event = SolverMetrics.beginSolve("ParallelKnapSack", v.length - 1);
+    ParallelKnapSack knapsack = new ParallelKnapSack(v, w, cutoff);
+    long sol;
+    if (knapsack.N == 0) {
+      sol = 0L;
+    } else {
+      ForkJoinPool pool = new ForkJoinPool(threads);
+      try {
+        Task root = knapsack.new Task(knapsack.N, W, null);
+        knapsack.table.claim(key(knapsack.N, W), root);
+        pool.invoke(root);
+        sol = root.sol;
+      } finally {
+        pool.shutdown();
+      }
+    }
+    SolverMetrics.endSolve(event);
+    return sol;
+  }
+
+  private static long key(int prefixLen, int remainingSize) {
+    return (long) prefixLen << 32 | remainingSize;
+  }
+
+  // Above the cutoff a task never blocks: it waits for its subproblems by
+  // registering with the tasks solving them, and runs onCompletion once the
+  // last of them has finished.
+  private class Task extends CountedCompleter<Void> {
+    private static final long serialVersionUID = 1L;
+
+    private final int prefixLen;
+    private final int remainingSize;
+
+    // Each subproblem as a Long value or the task that solves it
+    private Object skip;
+    private Object take;
+
+    private long sol;
+    // Tasks to notify on completion, null once completed
+    private List<Task> waiters = new ArrayList<>(1);
+
+    private Task(int prefixLen, int remainingSize, Task parent) {
+      this.prefixLen = prefixLen;
+      this.remainingSize = remainingSize;
+      if (parent != null) {
+        waiters.add(parent);
+      }
+    }
+
+    public void compute() {
+      if (SolverMetrics.ENABLED) {
+        TASKS.increment();
+      }
+      if (N - prefixLen >= cutoff) {
+        sol = sequential(prefixLen, remainingSize);
+      } else {
+        skip = subproblem(prefixLen - 1, remainingSize);
+        if (remainingSize - w[prefixLen] >= 0) {
+          take = subproblem(prefixLen - 1, remainingSize - w[prefixLen]);
+        }
+      }
+      tryComplete();
+    }
+
+    // Returns the solved value of a subproblem as a Long, or the task that
+    // solves it, which will notify this task: either a new one forked here
+    // or the owner of the entry in progress
+    private Object subproblem(int prefixLen, int remainingSize) {
+      if (prefixLen == 0) {
+        return 0L;
+      }
+      Task task = new Task(prefixLen, remainingSize, this);
+      addToPendingCount(1);
+      Object found = table.claim(key(prefixLen, remainingSize), task);
+      if (found == null) {
+        task.fork();
+        return task;
+      }
+      if (found instanceof Task) {
+        Task owner = (Task) found;
+        if (owner.addWaiter(this)) {
+          if (SolverMetrics.ENABLED) {
+            IN_PROGRESS_WAITS.increment();
+          }
+          return found;
+        }
+        if (owner.isCompletedAbnormally()) {
+          throw new CompletionException(owner.getException());
+        }
+      }
+      addToPendingCount(-1);
+      return found;
+    }
+
+    private synchronized boolean addWaiter(Task task) {
+      if (waiters == null) {
+        return false;
+      }
+      waiters.add(task);
+      return true;
+    }
+
+    // Anything here that can throw runs before the waiters are taken, so
+    // that a failure still reaches them through onExceptionalCompletion
+    public void onCompletion(CountedCompleter<?> caller) {
+      if (N - prefixLen < cutoff) {
+        sol = take != null ? v[prefixLen] + value(take) : 0L;
+        sol = Math.max(sol, value(skip));
+        skip = null;
+        take = null;
+      }
+      table.complete(key(prefixLen, remainingSize), sol);
+      release(takeWaiters(), null);
+    }
+
+    public boolean onExceptionalCompletion(Throwable ex, CountedCompleter<?> caller) {
+      release(takeWaiters(), ex);
+      return true;
+    }
+
+    private synchronized List<Task> takeWaiters() {
+      List<Task> notify = waiters;
+      waiters = null;
+      return notify;
+    }
+  }
+
+  // Notifies waiters that a task they wait for has completed, normally if
+  // ex is null. Notifying one can complete it and release its own waiters
+  // in turn, a chain as long as the cutoff; the chain is walked through a
+  // per-thread queue rather than nested calls, so a large cutoff cannot
+  // overflow the stack.
+  private void release(List<Task> waiters, Throwable ex) {
+    if (waiters == null) {
+      return;
+    }
+    Notifications q = notifications.get();
+    for (Task waiter: waiters) {
+      q.tasks.add(waiter);
+      q.failures.add(ex != null ? ex : Notifications.NONE);
+    }
+    if (q.draining) {
+      return;
+    }
+    q.draining = true;
+    try {
+      Task waiter;
+      while ((waiter = q.tasks.poll()) != null) {
+        Throwable failure = q.failures.poll();
+        if (failure != Notifications.NONE) {
+          waiter.completeExceptionally(failure);
+          continue;
+        }
+        try {
+          waiter.tryComplete();
+        } catch (Throwable e) {
+          waiter.completeExceptionally(e);
+        }
+      }
+    } finally {
+      q.draining = false;
+    }
+  }
+
+  private static final class Notifications {
+    // Placeholder in failures for a normal completion
+    private static final Throwable NONE = new Throwable("none", null, false, false) {
+      private static final long serialVersionUID = 1L;
+    };
+
+    private final ArrayDeque<Task> tasks = new ArrayDeque<>();
+    private final ArrayDeque<Throwable> failures = new ArrayDeque<>();
+    private boolean draining;
+  }
+
+  private static long value(Object sub) {
+    return sub instanceof Task ? ((Task) sub).sol : (Long) sub;
+  }
+
+  // The recursion of KnapSackHugeData.solve on an explicit stack. Each
+  // frame steps through SKIP (solve the skip subproblem), TAKE (solve the
+  // take subproblem) and DONE; sol carries the value of the frame last
+  // popped back to its caller.
+  private long sequential(int prefixLen, int remainingSize) {
+    Frames f = frames.get();
+    int top = 0;
+    f.push(top++, prefixLen, remainingSize);
+    long sol = 0L;
+    while (top > 0) {
+      int i = top - 1;
+      int p = f.prefixLen[i];
+      int r = f.remainingSize[i];
+      switch (f.step[i]) {
+        case Frames.SKIP:
+          if (p == 0) {
+            sol = 0L;
+            top--;
+            break;
+          }
+          sol = table.get(key(p, r));
+          if (sol != StateTable.MISSING) {
+            top--;
+            break;
+          }
+          f.step[i] = Frames.TAKE;
+          f.push(top++, p - 1, r);
+          break;
+        case Frames.TAKE:
+          f.skip[i] = sol;
+          if (r - w[p] >= 0) {
+            f.step[i] = Frames.DONE;
+            f.push(top++, p - 1, r - w[p]);
+            break;
+          }
+          table.putIfAbsent(key(p, r), sol);
+          top--;
+          break;
+        default:
+          sol = Math.max(f.skip[i], v[p] + sol);
+          table.putIfAbsent(key(p, r), sol);
+          top--;
+          break;
+      }
+    }
+    return sol;
+  }
+
+  private static final class Frames {
+    private static final byte SKIP = 0;
+    private static final byte TAKE = 1;
+    private static final byte DONE = 2;
+
+    private final int[] prefixLen;
+    private final int[] remainingSize;
+    private final long[] skip;
+    private final byte[] step;
+
+    private Frames(int depth) {
+      prefixLen = new int[depth];
+      remainingSize = new int[depth];
+      skip = new long[depth];
+      step = new byte[depth];
+    }
+
+    private void push(int i, int p, int r) {
+      prefixLen[i] = p;
+      remainingSize[i] = r;
+      step[i] = SKIP;
+    }
+  }
+
+  /**
+   * Lock-striped open-addressing map from non-negative long keys to long
+   * values, where an entry may instead be in progress under an owner.
+   */
+  private static final class StateTable {
+    private static final long MISSING = Long.MIN_VALUE;
+
+    private final Stripe[] stripes;
+
+    private StateTable(int numStripes) {
+      stripes = new Stripe[numStripes];
+      for (int i = 0; i < numStripes; i++) {
+        stripes[i] = new Stripe();
+      }
+    }
+
+    // Murmur3 finalizer; the high bits pick the stripe, the low bits the slot
+    private static long mix(long key) {
+      key ^= key >>> 33;
+      key *= 0xff51afd7ed558ccdL;
+      key ^= key >>> 33;
+      key *= 0xc4ceb9fe1a85ec53L;
+      key ^= key >>> 33;
+      return key;
+    }
+
+    private Stripe stripe(long h) {
+      return stripes[(int) (h >>> 40) & (stripes.length - 1)];
+    }
+
+    /**
+     * Returns the value of key, or MISSING if it is absent or in progress.
+     */
+    private long get(long key) {
+      long h = mix(key);
+      return stripe(h).get(key, (int) h);
+    }
+
+    private void putIfAbsent(long key, long value) {
+      long h = mix(key);
+      stripe(h).put(key, (int) h, value, null, false);
+    }
+
+    /**
+     * Marks key in progress under owner, unless it is present already.
+     * Returns null if the claim succeeded, else the value as a Long or the
+     * owner of the entry in progress.
+     */
+    private Object claim(long key, Object owner) {
+      long h = mix(key);
+      return stripe(h).put(key, (int) h, MISSING, owner, false);
+    }
+
+    /**
+     * Stores the final value of a claimed key.
+     */
+    private void complete(long key, long value) {
+      long h = mix(key);
+      stripe(h).put(key, (int) h, value, null, true);
+    }
+  }
+
+  private static final class Stripe {
+    private static final long EMPTY = -1L;
+
+    private long[] keys;
+    private long[] vals;
+    // Owners of the entries in progress, whose vals are MISSING
+    private Object[] owners;
+    private int size;
+
+    private Stripe() {
+      allocate(64);
+    }
+
+    private void allocate(int capacity) {
+      keys = new long[capacity];
+      vals = new long[capacity];
+      owners = new Object[capacity];
+      Arrays.fill(keys, EMPTY);
+    }
+
+    private synchronized long get(long key, int h) {
+      int mask = keys.length - 1;
+      for (int i = h & mask; ; i = (i + 1) & mask) {
+        if (keys[i] == key) {
+          return vals[i];
+        }
+        if (keys[i] == EMPTY) {
+          return StateTable.MISSING;
+        }
+      }
+    }
+
+    // Inserts key with value (MISSING plus an owner for a claim). An
+    // existing entry is returned, as its value or its owner, and kept
+    // unless replace is set.
+    private synchronized Object put(long key, int h, long value, Object owner, boolean replace) {
+      int mask = keys.length - 1;
+      int i = h & mask;
+      while (keys[i] != EMPTY) {
+        if (keys[i] == key) {
+          Object found = vals[i] != StateTable.MISSING ? (Object) vals[i] : owners[i];
+          if (replace) {
+            vals[i] = value;
+            owners[i] = owner;
+          }
+          return found;
+        }
+        i = (i + 1) & mask;
+      }
+      keys[i] = key;
+      vals[i] = value;
+      owners[i] = owner;
+      if (++size > keys.length / 2) {
+        grow();
+      }
+      return null;
+    }
+
+    private void grow() {
+      long[] oldKeys = keys;
+      long[] oldVals = vals;
+      Object[] oldOwners = owners;
+      allocate(2 * oldKeys.length);
+      int mask = keys.length - 1;
+      for (int j = 0; j < oldKeys.length; j++) {
+        if (oldKeys[j] != EMPTY) {
+          int i = (int) StateTable.mix(oldKeys[j]) & mask;
+          while (keys[i] != EMPTY) {
+            i = (i + 1) & mask;
+          }
+          keys[i] = oldKeys[j];
+          vals[i] = oldVals[j];
+          owners[i] = oldOwners[j];
+        }
+      }
+    }
+  }
+
+
+  public static void main(String[] args) throws IOException {
+    if (args.length == 0) {
+      System.out.println("Usage: java ParallelKnapSack <input-data-file> [max-threads]");
+      System.exit(1);
+    }
+
+    Scanner s = new Scanner(new File(args[0]));
+    final int W = s.nextInt();
+    final int N = s.nextInt() + 1;
+    int[] v = new int[N], w = new int[N];
+    for (int i = 1; i < N; i++) {
+      v[i] = s.nextInt();
+      w[i] = s.nextInt();
+    }
+    s.close();
+    int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+    selfCheck(maxThreads);
+
+    long start = System.nanoTime();
+    long expected = KnapSackHugeData.solve(v, w, W);
+    double seqMillis = (System.nanoTime() - start) / 1e6;
+    System.out.println("optimal solution value: " + expected);
+    System.out.printf("sequential: %.1f ms%n", seqMillis);
+
+    for (int threads = 1; ; threads = Math.min(2 * threads, maxThreads)) {
+      start = System.nanoTime();
+      long sol = solve(v, w, W, threads);
+      double millis = (System.nanoTime() - start) / 1e6;
+      if (sol != expected) {
+        throw new RuntimeException("Parallel knapsack value differs from sequential with " + threads + " threads");
+      }
+      System.out.printf("%2d threads: %.1f ms (%.2fx vs sequential)%n", threads, millis, seqMillis / millis);
+      if (threads == maxThreads) {
+        break;
+      }
+    }
+  }
+
+  // Compares with KnapSackHugeData on random small instances, with random
+  // thread counts and cutoffs from 0 (everything sequential) to past N
+  // (everything forked)
+  private static void selfCheck(int maxThreads) {
+    Random rand = new Random(20161019L);
+    final int instances = 300;
+    for (int t = 0; t < instances; t++) {
+      int N = rand.nextInt(60);
+      int W = rand.nextInt(2000);
+      int[] v = new int[N + 1], w = new int[N + 1];
+      for (int i = 1; i <= N; i++) {
+        v[i] = rand.nextInt(1000);
+        w[i] = 1 + rand.nextInt(W / 3 + 1);
+      }
+      int threads = 1 + rand.nextInt(maxThreads);
+      int cutoff = rand.nextInt(N + 2);
+      long expected = KnapSackHugeData.solve(v, w, W);
+      long sol = solve(v, w, W, threads, cutoff);
+      if (sol != expected) {
+        throw new RuntimeException(String.format("Self-check instance %d (N = %d, W = %d, %d threads, cutoff %d): %d instead of %d", t, N, W, threads, cutoff, sol, expected));
+      }
+    }
+    System.out.printf("self-check: %d random instances agree with KnapSackHugeData%n", instances);
+  }
+
+}
@@ -1,26 +1,39 @@
+package misccode;
+
 import java.util.*;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 
 
 public class QuickSort<T extends Comparable<T>> {
   
+  private static final LongAdder COMPARISONS = SolverMetrics.counter("quicksort.comparisons");
+  private static final LongAdder SWAPS = SolverMetrics.counter("quicksort.swaps");
+  private static final LongAccumulator MAX_DEPTH = SolverMetrics.max("quicksort.recursion-depth");
+  
   private Random rand = new Random();
   
   public void sort(T[] a) {
-    sort(a, 0, a.length - 1);
+    SolverMetrics.SolveEvent event = SolverMetrics.beginSolve("QuickSort", a.length);
+    sort(a, 0, a.length - 1, 1);
+    SolverMetrics.endSolve(event);
   }
   
-  private void sort(T[] a, int lo, int hi) {
+  private void sort(T[] a, int lo, int hi, int depth) {
     // Base case
     if (lo >= hi) {
       return;
     }
+    if (SolverMetrics.ENABLED) {
+      MAX_DEPTH.accumulate(depth);
+    }
     
     // Partition
     int pivot = partition(a, lo, hi);
     
     // Recur
-    sort(a, lo, pivot - 1);
-    sort(a, pivot + 1, hi);
+    sort(a, lo, pivot - 1, depth + 1);
+    sort(a, pivot + 1, hi, depth + 1);
   }
   
   private int partition(T[] a, int lo, int hi) {
@@ -47,10 +60,16 @@ public class QuickSort<T extends Comparable<T>> {
   }
   
   private boolean less(T a, T b) {
+    if (SolverMetrics.ENABLED) {
+      COMPARISONS.increment();
+    }
     return a.compareTo(b) < 0;
   }
   
   private void swap(T[] a, int i, int j) {
+    if (SolverMetrics.ENABLED) {
+      SWAPS.increment();
+    }
     T tmp = a[i];
     a[i] = a[j];
     a[j] = tmp;
@@ -0,0 +1,173 @@
+package misccode;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Content-addressed cache of solver results, keyed by a hash of the input.
+ *
+ * The memory tier is an access-ordered LinkedHashMap that evicts the least
+ * recently used entries once the total weight of the values, as reported
+ * by the codec, exceeds a bound. With a directory given, every value is
+ * also written there as one file per key, and memory misses fall back to
+ * it, so results survive restarts. The disk tier is not bounded, and a
+ * file that cannot be read back counts as a miss and is deleted.
+ */
+public class ResultCache<V> {
+
+  private static final LongAdder MEMORY_HITS = SolverMetrics.counter("result-cache.memory-hits");
+  private static final LongAdder DISK_HITS = SolverMetrics.counter("result-cache.disk-hits");
+  private static final LongAdder MISSES = SolverMetrics.counter("result-cache.misses");
+  private static final LongAdder EVICTIONS = SolverMetrics.counter("result-cache.evictions");
+  private static final LongAdder UNREADABLE = SolverMetrics.counter("result-cache.unreadable-files");
+
+  /**
+   * Serializes values for the disk tier and weighs them for the memory tier.
+   */
+  public interface Codec<V> {
+    void write(DataOutput out, V value) throws IOException;
+
+    V read(DataInput in) throws IOException;
+
+    /**
+     * Returns the approximate size of value in bytes.
+     */
+    long weight(V value);
+  }
+
+  private final Codec<V> codec;
+  private final long maxWeight;
+  private final Path dir;
+  private final LinkedHashMap<String, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long weight;
+
+  public ResultCache(Codec<V> codec, long maxWeight) {
+    this(codec, maxWeight, null);
+  }
+
+  /**
+   * Creates a cache holding at most maxWeight bytes in memory, backed by
+   * dir on disk unless dir is null.
+   */
+  public ResultCache(Codec<V> codec, long maxWeight, Path dir) {
+    this.codec = codec;
+    this.maxWeight = maxWeight;
+    this.dir = dir;
+    if (dir != null) {
+      try {
+        Files.createDirectories(dir);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  /**
+   * Returns the value cached under key, or null.
+   */
+  public synchronized V get(String key) {
+    V value = entries.get(key);
+    if (value != null) {
+      if (SolverMetrics.ENABLED) {
+        MEMORY_HITS.increment();
+      }
+      return value;
+    }
+    value = load(key);
+    if (value != null) {
+      if (SolverMetrics.ENABLED) {
+        DISK_HITS.increment();
+      }
+      remember(key, value);
+      return value;
+    }
+    if (SolverMetrics.ENABLED) {
+      MISSES.increment();
+    }
+    return null;
+  }
+
+  /**
+   * Caches value under key, replacing any previous value.
+   */
+  public synchronized void put(String key, V value) {
+    remember(key, value);
+    store(key, value);
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * Returns the total weight of the values held in memory.
+   */
+  public synchronized long weight() {
+    return weight;
+  }
+
+  private void remember(String key, V value) {
+    V old = entries.remove(key);
+    if (old != null) {
+      weight -= codec.weight(old);
+    }
+    long w = codec.weight(value);
+    if (w > maxWeight) {
+      return;
+    }
+    entries.put(key, value);
+    weight += w;
+    Iterator<V> lru = entries.values().iterator();
+    while (weight > maxWeight) {
+      weight -= codec.weight(lru.next());
+      lru.remove();
+      if (SolverMetrics.ENABLED) {
+        EVICTIONS.increment();
+      }
+    }
+  }
+
+  private V load(String key) {
+    if (dir == null) {
+      return null;
+    }
+    Path file = dir.resolve(key);
+    if (!Files.exists(file)) {
+      return null;
+    }
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      return codec.read(in);
+    } catch (IOException | RuntimeException e) {
+      // A truncated or unreadable file is a miss; drop it so that the next
+      // put writes the entry again
+      if (SolverMetrics.ENABLED) {
+        UNREADABLE.increment();
+      }
+      try {
+        Files.deleteIfExists(file);
+      } catch (IOException ignored) {
+        // put replaces the file anyway
+      }
+      return null;
+    }
+  }
+
+  // Writes to a temporary file first so that readers never see a partial value
+  private void store(String key, V value) {
+    if (dir == null) {
+      return;
+    }
+    try {
+      Path tmp = Files.createTempFile(dir, key, ".tmp");
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+        codec.write(out, value);
+      }
+      Files.move(tmp, dir.resolve(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+}
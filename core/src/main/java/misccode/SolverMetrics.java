@@ -0,0 +1,148 @@
+package misccode;
+
+import java.io.PrintStream;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import jdk.jfr.*;
+
+/**
+ * Low-overhead instrumentation shared by the solvers.
+ *
+ * Everything is off unless the JVM starts with -Dsolver.metrics=true.
+ * Counters are striped LongAdders and maxima LongAccumulators, registered
+ * by name and held by the solvers in static final fields. Per-phase
+ * nanosecond timers additionally need -Dsolver.metrics.timers=true, since
+ * they cost two System.nanoTime calls per phase. While enabled, solves and
+ * timed phases are also emitted as JDK Flight Recorder events, and a
+ * summary of all metrics is printed to stderr at exit.
+ *
+ * Both switches are static finals read once, so with metrics disabled the
+ * JIT folds every "if (SolverMetrics.ENABLED)" guard away.
+ */
+public final class SolverMetrics {
+
+  public static final boolean ENABLED = Boolean.getBoolean("solver.metrics");
+  public static final boolean TIMERS = ENABLED && Boolean.getBoolean("solver.metrics.timers");
+
+  private static final ConcurrentMap<String, LongAdder> counters = new ConcurrentSkipListMap<>();
+  private static final ConcurrentMap<String, LongAccumulator> maxima = new ConcurrentSkipListMap<>();
+  private static final ConcurrentMap<String, Phase> phases = new ConcurrentSkipListMap<>();
+
+  static {
+    if (ENABLED) {
+      Runtime.getRuntime().addShutdownHook(new Thread(() -> printSummary(System.err)));
+    }
+  }
+
+  private SolverMetrics() {}
+
+  /**
+   * Returns the counter registered under name, creating it if needed.
+   */
+  public static LongAdder counter(String name) {
+    return counters.computeIfAbsent(name, k -> new LongAdder());
+  }
+
+  /**
+   * Returns the running maximum registered under name, creating it if needed.
+   */
+  public static LongAccumulator max(String name) {
+    return maxima.computeIfAbsent(name, k -> new LongAccumulator(Math::max, 0L));
+  }
+
+  /**
+   * Returns the phase timer registered under name, creating it if needed.
+   */
+  public static Phase phase(String name) {
+    return phases.computeIfAbsent(name, Phase::new);
+  }
+
+  /**
+   * Marks the start of a solve. Returns the event to pass to endSolve, or
+   * null when metrics are disabled.
+   */
+  static SolveEvent beginSolve(String solver, long size) {
+    if (!ENABLED) {
+      return null;
+    }
+    SolveEvent event = new SolveEvent();
+    event.solver = solver;
+    event.size = size;
+    event.begin();
+    return event;
+  }
+
+  static void endSolve(SolveEvent event) {
+    if (event != null) {
+      event.commit();
+    }
+  }
+
+  public static void printSummary(PrintStream out) {
+    out.println("solver metrics:");
+    counters.forEach((name, counter) -> out.printf("  %-40s %,d%n", name, counter.sum()));
+    maxima.forEach((name, max) -> out.printf("  %-40s %,d (max)%n", name, max.get()));
+    phases.forEach((name, phase) -> out.printf("  %-40s %,.3f ms in %,d calls%n", name, phase.nanos.sum() / 1e6, phase.calls.sum()));
+  }
+
+  /**
+   * Accumulated wall time of one solver phase.
+   */
+  public static final class Phase {
+    private final String name;
+    private final LongAdder nanos = new LongAdder();
+    private final LongAdder calls = new LongAdder();
+
+    private Phase(String name) {
+      this.name = name;
+    }
+
+    /**
+     * Returns the start timestamp to pass to end, or 0 when timers are off.
+     */
+    public long begin() {
+      return TIMERS ? System.nanoTime() : 0L;
+    }
+
+    public void end(long start) {
+      if (TIMERS) {
+        long elapsed = System.nanoTime() - start;
+        nanos.add(elapsed);
+        calls.increment();
+        PhaseEvent event = new PhaseEvent();
+        if (event.shouldCommit()) {
+          event.phase = name;
+          event.elapsed = elapsed;
+          event.commit();
+        }
+      }
+    }
+  }
+
+  @Name("misccode.Solve")
+  @Label("Solve")
+  @Category("Solvers")
+  static class SolveEvent extends Event {
+    @Label("Solver")
+    String solver;
+
+    @Label("Problem Size")
+    long size;
+  }
+
+  @Name("misccode.Phase")
+  @Label("Solver Phase")
+  @Category("Solvers")
+  @StackTrace(false)
+  static class PhaseEvent extends Event {
+    @Label("Phase")
+    String phase;
+
+    @Label("Elapsed")
+    @Timespan(Timespan.NANOSECONDS)
+    long elapsed;
+  }
+
+}
@@ -0,0 +1,173 @@
+package misccode;
+
+/**
+ * Compact storage for a symmetric distance matrix: only the strict upper
+ * triangle is kept, packed row by row into one primitive array, so entry
+ * (i, j) with i < j lives at index(n, i, j). The diagonal reads as
+ * Double.MAX_VALUE like the dense matrices of the TSP solvers.
+ *
+ * Two encodings are available: float, at 4 bytes per city pair, and a
+ * quantized one that stores round(distance * scale) in a short (2 bytes)
+ * when every value fits in 16 bits, else in an int. With scale 1 the
+ * quantized encoding gives TSPLIB's integer-rounded distances (nint).
+ */
+public abstract class SymmetricDistances {
+
+  private static final double INF = Double.MAX_VALUE;
+
+  protected final int n;
+
+  protected SymmetricDistances(int n) {
+    this.n = n;
+  }
+
+  /**
+   * Packs the Euclidean distances between the points (x[i], y[i]) as floats.
+   */
+  public static SymmetricDistances packedFloat(double[] x, double[] y) {
+    final int n = x.length;
+    float[] d = new float[size(n)];
+    int k = 0;
+    for (int i = 0; i < n - 1; i++) {
+      for (int j = i + 1; j < n; j++) {
+        d[k++] = (float) Math.hypot(x[i] - x[j], y[i] - y[j]);
+      }
+    }
+    return new PackedFloat(n, d);
+  }
+
+  /**
+   * Packs the Euclidean distances between the points (x[i], y[i]) as
+   * integers round(distance * scale).
+   */
+  public static SymmetricDistances quantized(double[] x, double[] y, double scale) {
+    final int n = x.length;
+    int[] q = new int[size(n)];
+    int max = 0;
+    int k = 0;
+    for (int i = 0; i < n - 1; i++) {
+      for (int j = i + 1; j < n; j++) {
+        long val = Math.round(Math.hypot(x[i] - x[j], y[i] - y[j]) * scale);
+        if (val > Integer.MAX_VALUE) {
+          throw new IllegalArgumentException("Distance too large for scale " + scale);
+        }
+        q[k++] = (int) val;
+        max = Math.max(max, (int) val);
+      }
+    }
+    if (max <= 0xffff) {
+      short[] s = new short[q.length];
+      for (k = 0; k < q.length; k++) {
+        s[k] = (short) q[k];
+      }
+      return new QuantizedShort(n, s, scale);
+    }
+    return new QuantizedInt(n, q, scale);
+  }
+
+  /**
+   * Returns the position of entry (i, j), i < j, in the packed triangle.
+   */
+  public static int index(int n, int i, int j) {
+    return (int) ((long) i * (2 * n - i - 1) / 2 + (j - i - 1));
+  }
+
+  private static int size(int n) {
+    long size = (long) n * (n - 1) / 2;
+    if (size > Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException("Too many cities for packed storage: " + n);
+    }
+    return (int) size;
+  }
+
+  public int n() {
+    return n;
+  }
+
+  /**
+   * Returns the distance between cities i and j.
+   */
+  public double get(int i, int j) {
+    if (i == j) {
+      return INF;
+    }
+    return i < j ? packed(index(n, i, j)) : packed(index(n, j, i));
+  }
+
+  /**
+   * Copies row i into buf[0 .. n).
+   */
+  public void row(int i, double[] buf) {
+    for (int j = 0; j < i; j++) {
+      buf[j] = packed(index(n, j, i));
+    }
+    buf[i] = INF;
+    int k = index(n, i, i + 1);
+    for (int j = i + 1; j < n; j++) {
+      buf[j] = packed(k++);
+    }
+  }
+
+  /**
+   * Returns the number of bytes used by the packed entries.
+   */
+  public abstract long bytes();
+
+  protected abstract double packed(int k);
+
+  private static class PackedFloat extends SymmetricDistances {
+    private final float[] d;
+
+    private PackedFloat(int n, float[] d) {
+      super(n);
+      this.d = d;
+    }
+
+    protected double packed(int k) {
+      return d[k];
+    }
+
+    public long bytes() {
+      return 4L * d.length;
+    }
+  }
+
+  private static class QuantizedShort extends SymmetricDistances {
+    private final short[] q;
+    private final double scale;
+
+    private QuantizedShort(int n, short[] q, double scale) {
+      super(n);
+      this.q = q;
+      this.scale = scale;
+    }
+
+    protected double packed(int k) {
+      return (q[k] & 0xffff) / scale;
+    }
+
+    public long bytes() {
+      return 2L * q.length;
+    }
+  }
+
+  private static class QuantizedInt extends SymmetricDistances {
+    private final int[] q;
+    private final double scale;
+
+    private QuantizedInt(int n, int[] q, double scale) {
+      super(n);
+      this.q = q;
+      this.scale = scale;
+    }
+
+    protected double packed(int k) {
+      return q[k] / scale;
+    }
+
+    public long bytes() {
+      return 4L * q.length;
+    }
+  }
+
+}
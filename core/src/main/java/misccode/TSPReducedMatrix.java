@@ -1,9 +1,15 @@
+package misccode;
+
 import java.io.*;
 import java.util.*;
 
 
 public class TSPReducedMatrix {
   
+  private static final SolverMetrics.Phase REDUCTION = SolverMetrics.phase("tsp-reduced-matrix.reduction");
+  private static final SolverMetrics.Phase PENALTY_SEARCH = SolverMetrics.phase("tsp-reduced-matrix.penalty-search");
+  private static final SolverMetrics.Phase REMINIMIZATION = SolverMetrics.phase("tsp-reduced-matrix.re-minimization");
+  
   private final int n;
   private int[][] d;
   
@@ -42,6 +48,51 @@ public class TSPReducedMatrix {
 
   
   public long assignmentMethod(Integer[] tour) {
+    SolverMetrics.SolveEvent event = SolverMetrics.beginSolve("TSPReducedMatrix", n);
+    Map<Integer, Integer> assigns = maxPenaltyAssignment();
+    long tourDist = 0L;
+    for (Map.Entry<Integer, Integer> assign: assigns.entrySet()) {
+      Integer from = assign.getKey();
+      Integer to = assign.getValue();
+      tour[0] = from;
+      tour[1] = to;
+      tourDist += d[from][to];
+      //DEBUG: Print assignment
+      System.out.printf("%c ->  %c%n", (char) ('A'+from), (char) ('A'+to));
+      for (int idx = 2; idx <= n; idx++) {
+        from = to;
+        to = assigns.get(from);
+        tour[idx] = to;
+        tourDist += d[from][to];
+        //DEBUG: Print assignment
+        System.out.printf("%c ->  %c%n", (char) ('A'+from), (char) ('A'+to));
+      }
+      break;
+    }    
+    SolverMetrics.endSolve(event);
+    return tourDist;
+  }
+  
+  /**
+   * Solves the assignment relaxation with the given engine. Fills succ[i]
+   * with the city assigned after city i and returns the assignment cost.
+   * The assignment may consist of several subtours; with HUNGARIAN it is
+   * optimal and its cost is a lower bound on the shortest tour.
+   */
+  public long assignment(int[] succ, AssignmentEngine engine) {
+    if (engine == AssignmentEngine.HUNGARIAN) {
+      return HungarianAssignment.solve(d, succ);
+    }
+    long dist = 0L;
+    for (Map.Entry<Integer, Integer> assign: maxPenaltyAssignment().entrySet()) {
+      succ[assign.getKey()] = assign.getValue();
+      dist += d[assign.getKey()][assign.getValue()];
+    }
+    return dist;
+  }
+  
+  // Computes the max-penalty assignment; d is left unreduced
+  private Map<Integer, Integer> maxPenaltyAssignment() {
     //DEBUG: Print input distance matrix
     System.out.println("input distance matrix:");
     printMatrix();
@@ -61,8 +112,10 @@ public class TSPReducedMatrix {
     /* Initialization: ensure that all the rows and columns have at least one zero */
     Set<Integer> zeroCols = new HashSet<>(n);
     Set<Integer> zeroCellIdxs = new HashSet<>();
+    long start = REDUCTION.begin();
     minimizeRows(zeroCols, zeroCellIdxs);
     minimizeCols(zeroCols, zeroCellIdxs);
+    REDUCTION.end(start);
     
     //DEBUG: Print distance matrix after initial rows & columns minimization
     System.out.println("distance matrix after initial rows & columns minimization:");
@@ -76,7 +129,9 @@ public class TSPReducedMatrix {
       System.out.printf("before assignment %d, zeroCellIdxs = %s (%d 0s)%n", idx, zeroCellIdxs, zeroCellIdxs.size());
       
       // Find out the (row,col) index of zero-valued entry that has maximum penalty
+      start = PENALTY_SEARCH.begin();
       int[] rowcol = computeMaxPenaltyZero(zeroCellIdxs);
+      PENALTY_SEARCH.end(start);
       assigns.put(rowcol[0], rowcol[1]);
     
       // Update the reduced rows and columns
@@ -99,7 +154,9 @@ public class TSPReducedMatrix {
       System.out.println();
       
       // Ensure all the reduced rows and columns have at least one zero
+      start = REMINIMIZATION.begin();
       minimizeReducedMatrix(rowcol[0], rowcol[1], zeroCellIdxs);
+      REMINIMIZATION.end(start);
     
       //DEBUG: Print the reduced matrix after each transform
       System.out.printf("reduced matrix after transform %d:%n", idx);
@@ -124,26 +181,7 @@ public class TSPReducedMatrix {
     System.out.printf("%n*******************************************************************************************%n%n");
     
     d = dcopy;
-    long tourDist = 0L;
-    for (Map.Entry<Integer, Integer> assign: assigns.entrySet()) {
-      Integer from = assign.getKey();
-      Integer to = assign.getValue();
-      tour[0] = from;
-      tour[1] = to;
-      tourDist += d[from][to];
-      //DEBUG: Print assignment
-      System.out.printf("%c ->  %c%n", (char) ('A'+from), (char) ('A'+to));
-      for (int idx = 2; idx <= n; idx++) {
-        from = to;
-        to = assigns.get(from);
-        tour[idx] = to;
-        tourDist += d[from][to];
-        //DEBUG: Print assignment
-        System.out.printf("%c ->  %c%n", (char) ('A'+from), (char) ('A'+to));
-      }
-      break;
-    }    
-    return tourDist;
+    return assigns;
   }
   
   private void printMatrix() {
@@ -327,7 +365,7 @@ public class TSPReducedMatrix {
   
   public static void main(String[] args) throws IOException {
     if (args.length == 0) {
-      System.out.println("Execution: java TSPReducedMatrix <distance-matrix-file>");
+      System.out.println("Execution: java TSPReducedMatrix <distance-matrix-file> [max_penalty|hungarian]");
       System.exit(1);
     }
     
@@ -346,6 +384,14 @@ public class TSPReducedMatrix {
     s.close();
     
     TSPReducedMatrix tsp = new TSPReducedMatrix(n, d);
+    if (args.length > 1) {
+      AssignmentEngine engine = AssignmentEngine.valueOf(args[1].toUpperCase());
+      int[] succ = new int[n];
+      long cost = tsp.assignment(succ, engine);
+      System.out.printf("Assignment cost (%s): %d%n", engine, cost);
+      System.out.printf("Successors: %s%n", Arrays.toString(succ));
+      return;
+    }
     Integer[] tspTour = new Integer[n+1];
     long tspDistance = tsp.assignmentMethod(tspTour);
     System.out.printf("TSP Distance: %d%n", tspDistance);
@@ -0,0 +1,353 @@
+package misccode;
+
+import java.io.*;
+import java.util.*;
+
+
+public class TspAssignmentMethod {
+  
+  private static final double INF = Double.MAX_VALUE;
+  
+  // Relative tolerance for zeros of the compact overlay, which accumulates
+  // rounding error in its reductions
+  private static final double ZERO_TOLERANCE = 1e-9;
+  
+  private final int n;
+  private double[][] d;
+  private final Set<Integer> rows;
+  private final Set<Integer> cols;
+  
+  // Compact mode: d is null and the reduced matrix is distances(i, j)
+  // - rowRed[i] - colRed[j], except for the single cell (i, forbidden[i]) of
+  // row i that an assignment may have forbidden
+  private final SymmetricDistances distances;
+  private double[] rowRed;
+  private double[] colRed;
+  private int[] forbidden;
+  
+  public TspAssignmentMethod(double[][] distMatrix) {
+    n = distMatrix.length;
+    d = distMatrix;
+    this.distances = null;
+    rows = new HashSet<>(n);
+    cols = new HashSet<>(n);
+  }
+  
+  /**
+   * Works on compact symmetric storage instead of a dense matrix. The
+   * reductions the method makes are kept as O(n) per-row and per-column
+   * offsets plus at most one forbidden cell per row, so the solver needs no
+   * n x n working copy.
+   */
+  public TspAssignmentMethod(SymmetricDistances distances) {
+    n = distances.n();
+    d = null;
+    this.distances = distances;
+    rowRed = new double[n];
+    colRed = new double[n];
+    forbidden = new int[n];
+    rows = new HashSet<>(n);
+    cols = new HashSet<>(n);
+  }
+  
+  /**
+   * Fills tour with the n + 1 cities of the tour given by the max-penalty
+   * assignment and returns its length. Throws IllegalStateException when
+   * the assignment splits into subtours, so that it is not a tour.
+   */
+  public double minDistTour(Integer[] tour) {
+    Map<Integer, Integer> assigns = new HashMap<>(n);
+    final int start = maxPenaltyAssignment(assigns);
+    boolean[] visited = new boolean[n];
+    visited[start] = true;
+    tour[0] = start;
+    int from = start;
+    double dist = 0.0;
+    for (int i = 1; i <= n; i++) {
+      int to = assigns.get(from);
+      if (i < n ? visited[to] : to != start) {
+        throw new IllegalStateException(String.format("Assignment has subtours: the walk from city %d closes after %d of %d cities", start, i, n));
+      }
+      visited[to] = true;
+      dist += original(from, to);
+      tour[i] = to;
+      from = to;
+    }
+    return dist;
+  }
+  
+  /**
+   * Solves the assignment relaxation with the given engine. Fills succ[i]
+   * with the city assigned after city i and returns the assignment cost.
+   * The assignment may consist of several subtours; with HUNGARIAN it is
+   * optimal and its cost is a lower bound on the shortest tour.
+   */
+  public double assignment(int[] succ, AssignmentEngine engine) {
+    if (engine == AssignmentEngine.HUNGARIAN) {
+      return d != null ? HungarianAssignment.solve(d, succ) : HungarianAssignment.solve(distances, succ);
+    }
+    Map<Integer, Integer> assigns = new HashMap<>(n);
+    maxPenaltyAssignment(assigns);
+    double dist = 0.0;
+    for (Map.Entry<Integer, Integer> assign: assigns.entrySet()) {
+      succ[assign.getKey()] = assign.getValue();
+      dist += original(assign.getKey(), assign.getValue());
+    }
+    return dist;
+  }
+  
+  // Fills assigns with the max-penalty assignment and returns the row of
+  // the last assignment made. d is left unreduced.
+  private Integer maxPenaltyAssignment(Map<Integer, Integer> assigns) {
+    double[][] dcopy = null;
+    if (d != null) {
+      dcopy = new double[n][n];
+      for (int i = 0; i < n; i++) {
+        System.arraycopy(d[i], 0, dcopy[i], 0, n);
+      }
+    } else {
+      Arrays.fill(rowRed, 0.0);
+      Arrays.fill(colRed, 0.0);
+      Arrays.fill(forbidden, -1);
+    }
+    for (int city = 0; city < n; city++) {
+      rows.add(city);
+      cols.add(city);
+    }
+    
+    while (rows.size() > 1) {
+      // Minimize distance matrix so that all rows and cols have at least one zero
+      minimizeMatrix();
+      // Find out the location (row, col) of a zero with maximum penalty
+      Integer[] loc = locateMaxPenaltyZero();
+      // Make assignment row -> col and reduce distance matrix
+      assigns.put(loc[0], loc[1]);
+      reduceMatrix(loc[0], loc[1]);
+    }
+    //+ debug
+    if (cols.size() != 1) {
+      throw new RuntimeException(String.format("Something Wrong with code. # of rows/cols = %d/%d", rows.size(), cols.size()));
+    }
+    //-
+    
+    Integer[] lastRow = rows.toArray(new Integer[1]);
+    Integer[] lastCol = cols.toArray(new Integer[1]);
+    assigns.put(lastRow[0], lastCol[0]);
+    d = dcopy;
+    return lastRow[0];
+  }
+  
+  private void minimizeMatrix() {
+    Set<Integer> colsHasZero = new HashSet<>();
+    for (Integer row: rows) {
+      minimizeRow(row, colsHasZero);
+    }
+    for (Integer col: cols) {
+      if (!colsHasZero.contains(col)) {
+        minimizeCol(col);
+      }
+    }
+  }
+  
+  private void minimizeRow(Integer row, Set<Integer> colsHasZero) {
+    double min = INF;
+    for (Integer col: cols) {
+      min = Math.min(min, get(row, col));
+    }
+    if (d == null) {
+      for (Integer col: cols) {
+        if (get(row, col) == min) {
+          colsHasZero.add(col);
+        }
+      }
+      if (min != INF) {
+        rowRed[row] += min;
+      }
+      return;
+    }
+    for (Integer col: cols) {
+      if (d[row][col] != INF) {
+        if (d[row][col] == min) {
+          colsHasZero.add(col);
+        }
+        d[row][col] -= min;
+      }
+    }
+  }
+  
+  private void minimizeCol(Integer col) {
+    double min = INF;
+    for (Integer row: rows) {
+      min = Math.min(min, get(row, col));
+    }
+    if (d == null) {
+      if (min != INF) {
+        colRed[col] += min;
+      }
+      return;
+    }
+    for (Integer row: rows) {
+      if (d[row][col] != INF) {
+        d[row][col] -= min;
+      }
+    }
+  }
+  
+  private Integer[] locateMaxPenaltyZero() {
+    Integer i = -1, j = -1;
+    // Penalties are >= 0, and integer distances often tie at exactly 0
+    double maxPen = -1;
+    for (Integer row: rows) {
+      for (Integer col: cols) {
+        if (get(row, col) == 0.0) {
+          double pen = calcPenalty(row, col);
+          if (pen > maxPen) {
+            i = row;
+            j = col;
+            maxPen = pen;
+          }
+        }
+      }
+    }
+    if (i == -1) {
+      throw new IllegalStateException("No zero left in the reduced matrix");
+    }
+    return new Integer[] {i, j};
+  }
+  
+  private double calcPenalty(Integer row, Integer col) {
+    double minValOfRow = INF;
+    for (Integer j: cols) {
+      if (j != col) {
+        minValOfRow = Math.min(minValOfRow, get(row, j));
+      }
+    }
+    double minValOfCol = INF;
+    for (Integer i: cols) {
+      if (i != row) {
+        minValOfCol = Math.min(minValOfCol, get(i, col));
+      }
+    }
+    return minValOfRow + minValOfCol;
+  }
+  
+  private void reduceMatrix(Integer row, Integer col) {
+    rows.remove(row);
+    cols.remove(col);
+    if (rows.contains(col) && cols.contains(row)) {
+      if (d != null) {
+        d[col][row] = INF;
+      } else {
+        forbidden[col] = row;
+      }
+    }
+  }
+  
+  // Entry (row, col) of the reduced matrix
+  private double get(int row, int col) {
+    if (d != null) {
+      return d[row][col];
+    }
+    if (row == col || forbidden[row] == col) {
+      return INF;
+    }
+    double orig = distances.get(row, col);
+    double val = orig - rowRed[row] - colRed[col];
+    // Snap rounding noise to an exact zero. Rows that were already assigned
+    // keep receiving column reductions here, unlike in a dense matrix, so
+    // clamp their cells at zero as well.
+    return val <= ZERO_TOLERANCE * orig ? 0.0 : val;
+  }
+  
+  // Entry (row, col) of the unreduced matrix, once an assignment is done
+  private double original(int row, int col) {
+    return d != null ? d[row][col] : distances.get(row, col);
+  }
+  
+  
+  private static class City {
+    private final double x;
+    private final double y;
+    
+    private City(double xCoordinate, double yCoordinate) {
+      x = xCoordinate;
+      y = yCoordinate;
+    }
+  }  
+  
+  private static double distance(City p, City q) {
+    double dx = p.x - q.x, dy = p.y - q.y;
+    return Math.sqrt(dx * dx + dy * dy);
+  }
+  
+  private static double[][] distMatrix(City[] cities) {
+    final int n = cities.length;
+    double[][] d = new double[n][n];
+    for (int i = 0; i < n; i++) {
+      d[i][i] = INF;
+    }
+    for (int i = 0; i < n - 1; i++) {
+      for (int j = i + 1; j < n; j++) {
+        double distance = distance(cities[i], cities[j]);
+        d[i][j] = distance;
+        d[j][i] = distance;
+      }
+    }
+    return d;
+  }
+  
+  // Builds the solver over dense, packed float or TSPLIB-rounded storage
+  private static TspAssignmentMethod solver(City[] cities, String storage) {
+    if (storage.equals("dense")) {
+      return new TspAssignmentMethod(distMatrix(cities));
+    }
+    double[] x = new double[cities.length];
+    double[] y = new double[cities.length];
+    for (int i = 0; i < cities.length; i++) {
+      x[i] = cities[i].x;
+      y[i] = cities[i].y;
+    }
+    if (storage.equals("float")) {
+      return new TspAssignmentMethod(SymmetricDistances.packedFloat(x, y));
+    }
+    if (storage.equals("tsplib")) {
+      return new TspAssignmentMethod(SymmetricDistances.quantized(x, y, 1.0));
+    }
+    throw new IllegalArgumentException("Unknown storage: " + storage);
+  }
+  
+  public static void main(String[] args) throws IOException {
+    if (args.length == 0) {
+      System.out.println("Execution: java TspAssignmentMethod <cities-location-file> [n] [max_penalty|hungarian] [dense|float|tsplib]");
+      System.exit(1);
+    }
+    
+    Scanner s = new Scanner(new File(args[0]));
+    int n = s.nextInt();
+    //+ debug
+    if (args.length > 1) {
+      n = Integer.valueOf(args[1]);
+    }
+    //-
+    City[] cities = new City[n];
+    for (int i = 0; i < n; i++) {
+      cities[i] = new City(s.nextDouble(), s.nextDouble());
+    }
+    s.close();
+    
+    TspAssignmentMethod tsp = solver(cities, args.length > 3 ? args[3] : "dense");
+    if (args.length > 2) {
+      AssignmentEngine engine = AssignmentEngine.valueOf(args[2].toUpperCase());
+      int[] succ = new int[n];
+      double cost = tsp.assignment(succ, engine);
+      System.out.printf("Assignment cost (%s): %f%n", engine, cost);
+      System.out.printf("Successors: %s%n", Arrays.toString(succ));
+      return;
+    }
+    Integer[] tour = new Integer[n + 1];
+    double minDist = tsp.minDistTour(tour);
+    System.out.printf("TSP distance: %f%n", minDist);
+    System.out.printf("TSP tour: %s%n", Arrays.toString(tour));
+  }
+  
+}
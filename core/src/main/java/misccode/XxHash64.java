@@ -0,0 +1,170 @@
+package misccode;
+
+/**
+ * Streaming xxHash64. Input is consumed as little-endian bytes, so feeding
+ * an int or a long gives the same hash as feeding its 4 or 8 bytes.
+ */
+public class XxHash64 {
+
+  private static final long P1 = 0x9E3779B185EBCA87L;
+  private static final long P2 = 0xC2B2AE3D27D4EB4FL;
+  private static final long P3 = 0x165667B19E3779F9L;
+  private static final long P4 = 0x85EBCA77C2B2AE63L;
+  private static final long P5 = 0x27D4EB2F165667C5L;
+
+  private final long seed;
+  private long v1;
+  private long v2;
+  private long v3;
+  private long v4;
+  private long total;
+
+  // Pending input of the current 32-byte stripe
+  private final byte[] buf = new byte[32];
+  private int len;
+
+  public XxHash64(long seed) {
+    this.seed = seed;
+    reset();
+  }
+
+  public void reset() {
+    v1 = seed + P1 + P2;
+    v2 = seed + P2;
+    v3 = seed;
+    v4 = seed - P1;
+    total = 0;
+    len = 0;
+  }
+
+  public XxHash64 update(byte b) {
+    buf[len++] = b;
+    total++;
+    if (len == 32) {
+      stripe();
+    }
+    return this;
+  }
+
+  public XxHash64 update(int x) {
+    if (len <= 28) {
+      for (int k = 0; k < 4; k++) {
+        buf[len++] = (byte) (x >>> (8 * k));
+      }
+      total += 4;
+      if (len == 32) {
+        stripe();
+      }
+    } else {
+      for (int k = 0; k < 4; k++) {
+        update((byte) (x >>> (8 * k)));
+      }
+    }
+    return this;
+  }
+
+  public XxHash64 update(long x) {
+    if (len == 0 || len > 24) {
+      update((int) x);
+      update((int) (x >>> 32));
+      return this;
+    }
+    for (int k = 0; k < 8; k++) {
+      buf[len++] = (byte) (x >>> (8 * k));
+    }
+    total += 8;
+    if (len == 32) {
+      stripe();
+    }
+    return this;
+  }
+
+  public XxHash64 update(double x) {
+    return update(Double.doubleToLongBits(x));
+  }
+
+  public XxHash64 update(int[] a) {
+    update(a.length);
+    for (int x: a) {
+      update(x);
+    }
+    return this;
+  }
+
+  public XxHash64 update(double[] a) {
+    update(a.length);
+    for (double x: a) {
+      update(x);
+    }
+    return this;
+  }
+
+  /**
+   * Returns the hash of everything fed since the last reset.
+   */
+  public long digest() {
+    long h;
+    if (total >= 32) {
+      h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+      h = merge(h, v1);
+      h = merge(h, v2);
+      h = merge(h, v3);
+      h = merge(h, v4);
+    } else {
+      h = seed + P5;
+    }
+    h += total;
+
+    int pos = 0;
+    while (pos + 8 <= len) {
+      h ^= round(0, getLong(pos));
+      h = Long.rotateLeft(h, 27) * P1 + P4;
+      pos += 8;
+    }
+    if (pos + 4 <= len) {
+      h ^= (getInt(pos) & 0xFFFFFFFFL) * P1;
+      h = Long.rotateLeft(h, 23) * P2 + P3;
+      pos += 4;
+    }
+    while (pos < len) {
+      h ^= (buf[pos] & 0xFFL) * P5;
+      h = Long.rotateLeft(h, 11) * P1;
+      pos++;
+    }
+
+    h ^= h >>> 33;
+    h *= P2;
+    h ^= h >>> 29;
+    h *= P3;
+    h ^= h >>> 32;
+    return h;
+  }
+
+  private void stripe() {
+    v1 = round(v1, getLong(0));
+    v2 = round(v2, getLong(8));
+    v3 = round(v3, getLong(16));
+    v4 = round(v4, getLong(24));
+    len = 0;
+  }
+
+  private long getLong(int pos) {
+    return (getInt(pos) & 0xFFFFFFFFL) | ((long) getInt(pos + 4) << 32);
+  }
+
+  private int getInt(int pos) {
+    return (buf[pos] & 0xFF) | (buf[pos + 1] & 0xFF) << 8 | (buf[pos + 2] & 0xFF) << 16 | (buf[pos + 3] & 0xFF) << 24;
+  }
+
+  private static long round(long acc, long input) {
+    acc += input * P2;
+    acc = Long.rotateLeft(acc, 31);
+    return acc * P1;
+  }
+
+  private static long merge(long acc, long val) {
+    acc ^= round(0, val);
+    return acc * P1 + P4;
+  }
+
+}